@@ -0,0 +1,286 @@
+package matcher;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Minimal zip/jar reader parsing the central directory with a few positional channel reads.
+ *
+ * No file handle or mapping is retained past {@link #open(Path)} and each entry read opens the archive on its own,
+ * so any number of threads may read entries of the same archive concurrently and the file can be replaced while a
+ * reader is still referenced (e.g. by classes whose code is loaded lazily). Reading an entry after the archive got
+ * rewritten fails with an IOException or yields the new content, which the callers have to validate.
+ */
+public final class JarReader {
+	public static JarReader open(Path archive) throws IOException {
+		try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int tailLen = (int) Math.min(size, 20 + 22 + 0xffff);
+			ByteBuffer tail = read(channel, size - tailLen, tailLen, archive);
+
+			int eocd = findEndOfCentralDirectory(tail, archive);
+			long entryCount = tail.getShort(eocd + 10) & 0xffff;
+			long cdSize = tail.getInt(eocd + 12) & 0xffffffffL;
+			long cdOffset = tail.getInt(eocd + 16) & 0xffffffffL;
+
+			if (eocd >= 20 && tail.getInt(eocd - 20) == zip64LocatorSig) { // zip64 archive
+				long zip64Eocd = tail.getLong(eocd - 20 + 8);
+				if (zip64Eocd < 0 || zip64Eocd > size - 56) throw new ZipException("invalid zip64 end of central directory in "+archive);
+
+				ByteBuffer zip64 = read(channel, zip64Eocd, 56, archive);
+				if (zip64.getInt(0) != zip64EocdSig) throw new ZipException("invalid zip64 end of central directory in "+archive);
+
+				entryCount = zip64.getLong(32);
+				cdSize = zip64.getLong(40);
+				cdOffset = zip64.getLong(48);
+			}
+
+			if (cdOffset < 0 || cdSize < 0 || cdSize > size - cdOffset || cdSize > Integer.MAX_VALUE || entryCount < 0 || entryCount > cdSize / 46) {
+				throw new ZipException("invalid central directory in "+archive);
+			}
+
+			return new JarReader(archive, read(channel, cdOffset, (int) cdSize, archive), (int) entryCount);
+		}
+	}
+
+	private JarReader(Path archive, ByteBuffer centralDirectory, int entryCount) throws IOException {
+		this.archive = archive;
+		this.entries = Collections.unmodifiableList(readCentralDirectory(centralDirectory, entryCount));
+	}
+
+	private List<Entry> readCentralDirectory(ByteBuffer buffer, int entryCount) throws IOException {
+		List<Entry> ret = new ArrayList<>(entryCount);
+		int pos = 0;
+
+		for (int i = 0; i < entryCount; i++) {
+			if (pos > buffer.limit() - 46 || buffer.getInt(pos) != cdHeaderSig) throw new ZipException("invalid central directory header in "+archive);
+
+			int flags = buffer.getShort(pos + 8) & 0xffff;
+			int method = buffer.getShort(pos + 10) & 0xffff;
+			long compressedSize = buffer.getInt(pos + 20) & 0xffffffffL;
+			long size = buffer.getInt(pos + 24) & 0xffffffffL;
+			int nameLen = buffer.getShort(pos + 28) & 0xffff;
+			int extraLen = buffer.getShort(pos + 30) & 0xffff;
+			int commentLen = buffer.getShort(pos + 32) & 0xffff;
+			long localHeaderOffset = buffer.getInt(pos + 42) & 0xffffffffL;
+
+			if (nameLen > buffer.limit() - pos - 46) throw new ZipException("invalid central directory header in "+archive);
+			String name = getString(buffer, pos + 46, nameLen);
+
+			if (size == 0xffffffffL || compressedSize == 0xffffffffL || localHeaderOffset == 0xffffffffL) {
+				// sizes or offset are stored in the zip64 extended information extra field
+				int extraPos = pos + 46 + nameLen;
+				int extraEnd = extraPos + extraLen;
+
+				while (extraPos + 4 <= extraEnd) {
+					int id = buffer.getShort(extraPos) & 0xffff;
+					int len = buffer.getShort(extraPos + 2) & 0xffff;
+					int dataPos = extraPos + 4;
+
+					if (id == zip64ExtraId) {
+						if (size == 0xffffffffL) {
+							size = buffer.getLong(dataPos);
+							dataPos += 8;
+						}
+
+						if (compressedSize == 0xffffffffL) {
+							compressedSize = buffer.getLong(dataPos);
+							dataPos += 8;
+						}
+
+						if (localHeaderOffset == 0xffffffffL) {
+							localHeaderOffset = buffer.getLong(dataPos);
+						}
+
+						break;
+					}
+
+					extraPos = dataPos + len;
+				}
+			}
+
+			ret.add(new Entry(this, name, flags, method, compressedSize, size, localHeaderOffset));
+
+			pos += 46 + nameLen + extraLen + commentLen;
+		}
+
+		return ret;
+	}
+
+	private static int findEndOfCentralDirectory(ByteBuffer tail, Path archive) throws ZipException {
+		int min = Math.max(0, tail.limit() - 22 - 0xffff);
+
+		for (int pos = tail.limit() - 22; pos >= min; pos--) {
+			if (tail.getInt(pos) == eocdSig) return pos;
+		}
+
+		throw new ZipException("no end of central directory in "+archive);
+	}
+
+	private static String getString(ByteBuffer buffer, int pos, int len) {
+		byte[] bytes = new byte[len];
+		buffer.get(pos, bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Read len bytes at the absolute file position pos into a new little endian heap buffer, ready for reading.
+	 */
+	private static ByteBuffer read(FileChannel channel, long pos, int len, Path archive) throws IOException {
+		ByteBuffer ret = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (ret.hasRemaining()) {
+			if (channel.read(ret, pos + ret.position()) < 0) throw new ZipException("truncated archive "+archive);
+		}
+
+		return ret.flip();
+	}
+
+	public Path getPath() {
+		return archive;
+	}
+
+	public URI getUri() {
+		return archive.toUri();
+	}
+
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	byte[] read(Entry entry) throws IOException {
+		if ((entry.flags & 1) != 0) throw new ZipException("encrypted entry "+entry.name+" in "+archive);
+		if (entry.size > Integer.MAX_VALUE - 8 || entry.compressedSize > Integer.MAX_VALUE - 8) throw new ZipException("entry too large: "+entry.name+" in "+archive);
+
+		ByteBuffer data;
+
+		try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long headerPos = entry.localHeaderOffset;
+			if (headerPos < 0 || headerPos > size - 30) throw new ZipException("invalid local header for "+entry.name+" in "+archive);
+
+			ByteBuffer header = read(channel, headerPos, 30, archive);
+			if (header.getInt(0) != localHeaderSig) throw new ZipException("invalid local header for "+entry.name+" in "+archive);
+
+			long dataPos = headerPos + 30 + (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+			if (entry.compressedSize > size - dataPos) throw new ZipException("truncated entry "+entry.name+" in "+archive);
+
+			data = read(channel, dataPos, (int) entry.compressedSize, archive);
+		}
+
+		byte[] ret = new byte[(int) entry.size];
+
+		switch (entry.method) {
+		case methodStored:
+			if (entry.compressedSize != entry.size) throw new ZipException("size mismatch for stored entry "+entry.name+" in "+archive);
+			data.get(0, ret);
+			break;
+		case methodDeflated: {
+			Inflater inflater = inflaters.get();
+			inflater.reset();
+			inflater.setInput(data);
+
+			try {
+				int pos = 0;
+
+				while (pos < ret.length) {
+					int len = inflater.inflate(ret, pos, ret.length - pos);
+
+					if (len == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+						throw new ZipException("truncated deflate data for "+entry.name+" in "+archive);
+					}
+
+					pos += len;
+				}
+			} catch (DataFormatException e) {
+				throw new ZipException("invalid deflate data for "+entry.name+" in "+archive+": "+e.getMessage());
+			}
+
+			break;
+		}
+		default:
+			throw new ZipException("unsupported compression method "+entry.method+" for "+entry.name+" in "+archive);
+		}
+
+		return ret;
+	}
+
+	public static final class Entry {
+		Entry(JarReader reader, String name, int flags, int method, long compressedSize, long size, long localHeaderOffset) {
+			this.reader = reader;
+			this.name = name;
+			this.flags = flags;
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+
+		public JarReader getReader() {
+			return reader;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isDirectory() {
+			return name.endsWith("/");
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getLocalHeaderOffset() {
+			return localHeaderOffset;
+		}
+
+		/**
+		 * Read the uncompressed entry content, may be called concurrently.
+		 */
+		public byte[] read() throws IOException {
+			return reader.read(this);
+		}
+
+		@Override
+		public String toString() {
+			return reader.archive+"!/"+name;
+		}
+
+		private final JarReader reader;
+		private final String name;
+		private final int flags;
+		private final int method;
+		private final long compressedSize;
+		private final long size;
+		private final long localHeaderOffset;
+	}
+
+	private static final int localHeaderSig = 0x04034b50;
+	private static final int cdHeaderSig = 0x02014b50;
+	private static final int eocdSig = 0x06054b50;
+	private static final int zip64LocatorSig = 0x07064b50;
+	private static final int zip64EocdSig = 0x06064b50;
+	private static final int zip64ExtraId = 0x0001;
+	private static final int methodStored = 0;
+	private static final int methodDeflated = 8;
+
+	private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+
+	private final Path archive;
+	private final List<Entry> entries;
+}
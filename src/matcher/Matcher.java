@@ -1,8 +1,6 @@
 package matcher;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -39,6 +37,7 @@ import matcher.type.ClassEnv;
 import matcher.type.ClassEnvironment;
 import matcher.type.ClassInstance;
 import matcher.type.FieldInstance;
+import matcher.type.InputDirIndex;
 import matcher.type.InputFile;
 import matcher.type.MemberInstance;
 import matcher.type.MethodInstance;
@@ -97,11 +96,12 @@ public class Matcher {
 			List<InputFile> cpFilesA, List<InputFile> cpFilesB,
 			String nonObfuscatedClassPatternA, String nonObfuscatedClassPatternB, String nonObfuscatedMemberPatternA, String nonObfuscatedMemberPatternB,
 			DoubleConsumer progressReceiver) throws IOException {
-		List<Path> pathsA = resolvePaths(inputDirs, inputFilesA);
-		List<Path> pathsB = resolvePaths(inputDirs, inputFilesB);
-		List<Path> sharedClassPath = resolvePaths(inputDirs, cpFiles);
-		List<Path> classPathA = resolvePaths(inputDirs, cpFilesA);
-		List<Path> classPathB = resolvePaths(inputDirs, cpFilesB);
+		InputDirIndex index = new InputDirIndex(inputDirs);
+		List<Path> pathsA = resolvePaths(index, inputFilesA);
+		List<Path> pathsB = resolvePaths(index, inputFilesB);
+		List<Path> sharedClassPath = resolvePaths(index, cpFiles);
+		List<Path> classPathA = resolvePaths(index, cpFilesA);
+		List<Path> classPathB = resolvePaths(index, cpFilesB);
 
 		ProjectConfig config = new ProjectConfig(pathsA, pathsB, classPathA, classPathB, sharedClassPath, false,
 				nonObfuscatedClassPatternA, nonObfuscatedClassPatternB, nonObfuscatedMemberPatternA, nonObfuscatedMemberPatternB);
@@ -120,6 +120,10 @@ public class Matcher {
 	}
 
 	public static List<Path> resolvePaths(Collection<Path> inputDirs, Collection<InputFile> inputFiles) throws IOException {
+		return resolvePaths(new InputDirIndex(inputDirs), inputFiles);
+	}
+
+	public static List<Path> resolvePaths(InputDirIndex index, Collection<InputFile> inputFiles) throws IOException {
 		List<Path> ret = new ArrayList<>(inputFiles.size());
 
 		inputFileLoop: for (InputFile inputFile : inputFiles) {
@@ -130,7 +134,7 @@ public class Matcher {
 						continue inputFileLoop;
 					}
 				} else {
-					for (Path inputDir : inputDirs) {
+					for (Path inputDir : index.getInputDirs()) {
 						Path file = inputDir.resolve(inputFile.pathHint);
 
 						if (Files.isRegularFile(file) && inputFile.equals(file)) {
@@ -141,20 +145,10 @@ public class Matcher {
 				}
 			}
 
-			for (Path inputDir : inputDirs) {
-				try (Stream<Path> matches = Files.find(inputDir, Integer.MAX_VALUE, (path, attr) -> inputFile.equals(path), FileVisitOption.FOLLOW_LINKS)) {
-					Path file = matches.findFirst().orElse(null);
-
-					if (file != null) {
-						ret.add(file);
-						continue inputFileLoop;
-					}
-				} catch (UncheckedIOException e) {
-					throw e.getCause();
-				}
-			}
+			Path file = index.find(inputFile);
+			if (file == null) throw new IOException("can't find input "+inputFile);
 
-			throw new IOException("can't find input "+inputFile);
+			ret.add(file);
 		}
 
 		return ret;
@@ -8,6 +8,9 @@ import matcher.type.MethodInstance;
 import matcher.type.MethodVarInstance;
 
 public final class SimilarityChecker {
+	/**
+	 * Compare two matched classes, the member scores come from and are stored in the members' similarity caches.
+	 */
 	public static float compare(ClassInstance a, ClassInstance b) {
 		if (a.getMatch() != b) return 0;
 
@@ -15,13 +18,13 @@ public final class SimilarityChecker {
 
 		for (MethodInstance m : a.getMethods()) {
 			if (m.getMatch() != null) {
-				ret += compare(m, m.getMatch());
+				ret += m.getOrComputeCachedSimilarity();
 			}
 		}
 
 		for (FieldInstance m : a.getFields()) {
 			if (m.getMatch() != null) {
-				ret += compare(m, m.getMatch());
+				ret += m.getOrComputeCachedSimilarity();
 			}
 		}
 
@@ -0,0 +1,88 @@
+package matcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+import matcher.type.ClassEnvironment;
+import matcher.type.ClassInstance;
+import matcher.type.MatchableKind;
+import matcher.type.MethodInstance;
+
+/**
+ * Project wide similarity scores of all matched classes and methods, sorted from least to most similar.
+ *
+ * The scores come from the environment's similarity cache, only classes affected by match changes since the
+ * last report or GUI refresh have their instructions re-aligned.
+ */
+public final class SimilarityReport {
+	public static SimilarityReport create(ClassEnvironment env, DoubleConsumer progressReceiver, BooleanSupplier cancelled) {
+		env.updateSimilarities();
+
+		List<ClassInstance> classes = new ArrayList<>();
+
+		for (ClassInstance cls : env.getClassesA()) {
+			if (cls.isReal() && cls.hasMatch()) classes.add(cls);
+		}
+
+		List<Entry> entries = Collections.synchronizedList(new ArrayList<>());
+
+		Matcher.runInParallel(classes, cls -> {
+			if (cancelled.getAsBoolean()) return;
+
+			entries.add(new Entry(cls, cls.getMatch(), cls.getOrComputeCachedSimilarity()));
+
+			for (MethodInstance method : cls.getMethods()) {
+				if (method.isReal() && method.hasMatch()) {
+					entries.add(new Entry(method, method.getMatch(), method.getOrComputeCachedSimilarity()));
+				}
+			}
+		}, progressReceiver);
+
+		if (cancelled.getAsBoolean()) throw new CancellationException();
+
+		entries.sort(entryComparator);
+
+		return new SimilarityReport(entries);
+	}
+
+	private SimilarityReport(List<Entry> entries) {
+		this.entries = entries;
+	}
+
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	public static final class Entry {
+		Entry(ClassInstance a, ClassInstance b, float similarity) {
+			this(MatchableKind.CLASS, a.getDisplayName(NameType.PLAIN, true), b.getDisplayName(NameType.PLAIN, true), similarity);
+		}
+
+		Entry(MethodInstance a, MethodInstance b, float similarity) {
+			this(MatchableKind.METHOD, a.getDisplayName(NameType.PLAIN, true), b.getDisplayName(NameType.PLAIN, true), similarity);
+		}
+
+		private Entry(MatchableKind kind, String nameA, String nameB, float similarity) {
+			this.kind = kind;
+			this.nameA = nameA;
+			this.nameB = nameB;
+			this.similarity = similarity;
+		}
+
+		public final MatchableKind kind;
+		public final String nameA;
+		public final String nameB;
+		public final float similarity;
+	}
+
+	private static final Comparator<Entry> entryComparator = Comparator.<Entry>comparingDouble(e -> e.similarity)
+			.thenComparing(e -> e.kind)
+			.thenComparing(e -> e.nameA);
+
+	private final List<Entry> entries;
+}
@@ -3,11 +3,6 @@ package matcher;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystemNotFoundException;
-import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -48,48 +43,27 @@ public class Util {
 		}
 	}
 
-	public static FileSystem iterateJar(Path archive, boolean autoClose, Consumer<Path> handler) {
-		boolean existing = false;
-		FileSystem fs = null;
+	/**
+	 * Invoke handler for every class file entry within the archive.
+	 *
+	 * The returned reader may be retained to read more entries later, it doesn't need to be closed.
+	 */
+	public static JarReader iterateJar(Path archive, Consumer<JarReader.Entry> handler) {
+		JarReader reader;
 
 		try {
-			URI uri = new URI("jar:"+archive.toUri().toString());
-
-			synchronized (Util.class) {
-				try {
-					fs = FileSystems.getFileSystem(uri);
-					existing = true;
-					autoClose = false;
-				} catch (FileSystemNotFoundException e) {
-					fs = FileSystems.newFileSystem(uri, Collections.emptyMap());
-					existing = false;
-				}
-			}
-
-			Files.walkFileTree(fs.getPath("/"), new SimpleFileVisitor<Path>() {
-				@Override
-				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-					if (file.toString().endsWith(".class")) {
-						handler.accept(file);
-					}
-
-					return FileVisitResult.CONTINUE;
-				}
-			});
+			reader = JarReader.open(archive);
 		} catch (IOException e) {
-			closeSilently(fs);
 			throw new UncheckedIOException(e);
-		} catch (URISyntaxException e) {
-			closeSilently(fs);
-			throw new RuntimeException(e);
-		} catch (Throwable t) {
-			closeSilently(fs);
-			throw t;
 		}
 
-		if (autoClose) closeSilently(fs);
+		for (JarReader.Entry entry : reader.getEntries()) {
+			if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+				handler.accept(entry);
+			}
+		}
 
-		return autoClose || existing ? null : fs;
+		return reader;
 	}
 
 	public static boolean clearDir(Path path, Predicate<Path> disallowed) throws IOException {
@@ -357,6 +331,4 @@ public class Util {
 			if (startB != posB) return -1;
 		}
 	}
-
-	public static final Object asmNodeSync = new Object();
 }
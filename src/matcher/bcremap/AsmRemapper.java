@@ -1,37 +1,95 @@
 package matcher.bcremap;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.objectweb.asm.commons.Remapper;
 
 import matcher.NameType;
 import matcher.type.ClassEnv;
 import matcher.type.ClassInstance;
 import matcher.type.FieldInstance;
+import matcher.type.Matchable;
 import matcher.type.MethodInstance;
 import matcher.type.MethodVarInstance;
 
 public class AsmRemapper extends Remapper {
 	public AsmRemapper(ClassEnv env, NameType nameType) {
+		this(env, nameType, null);
+	}
+
+	/**
+	 * Create a remapper resolving class names through a lookup table first.
+	 *
+	 * @param classes concurrent plain name to class map shared between remappers, gets extended on demand; or null
+	 */
+	public AsmRemapper(ClassEnv env, NameType nameType, Map<String, ClassInstance> classes) {
+		this(env, nameType, classes, null);
+	}
+
+	/**
+	 * Create a remapper additionally collecting every class, member and variable whose name it maps.
+	 *
+	 * @param dependencies set receiving the named matchables, only accessed by the remapping thread; or null
+	 */
+	public AsmRemapper(ClassEnv env, NameType nameType, Map<String, ClassInstance> classes, Set<Matchable<?>> dependencies) {
 		this.env = env;
 		this.nameType = nameType;
+		this.classes = classes;
+		this.dependencies = dependencies;
+	}
+
+	/**
+	 * Create a concurrent class lookup table for use with {@link #AsmRemapper(ClassEnv, NameType, Map)}.
+	 */
+	public static Map<String, ClassInstance> createClassLookup(Collection<ClassInstance> classes) {
+		Map<String, ClassInstance> ret = new ConcurrentHashMap<>(classes.size() * 2);
+
+		for (ClassInstance cls : classes) {
+			ret.put(cls.getName(), cls);
+		}
+
+		return ret;
+	}
+
+	private ClassInstance getCls(String name) {
+		if (classes == null) return env.getClsByName(name);
+
+		ClassInstance ret = classes.get(name);
+
+		if (ret == null) {
+			ret = env.getClsByName(name);
+			if (ret != null) classes.put(name, ret);
+		}
+
+		return ret;
+	}
+
+	private String getName(Matchable<?> matchable) {
+		if (dependencies != null) dependencies.add(matchable);
+
+		return matchable.getName(nameType);
 	}
 
 	@Override
 	public String map(String typeName) {
-		ClassInstance cls = env.getClsByName(typeName);
+		ClassInstance cls = getCls(typeName);
 		if (cls == null) return typeName;
 
-		return cls.getName(nameType);
+		return getName(cls);
 	}
 
 	@Override
 	public String mapFieldName(String owner, String name, String desc) {
-		ClassInstance cls = env.getClsByName(owner);
+		ClassInstance cls = getCls(owner);
 		if (cls == null) return name;
 
 		FieldInstance field = cls.resolveField(name, desc);
 		if (field == null) return name;
 
-		return field.getName(nameType);
+		return getName(field);
 	}
 
 	@Override
@@ -40,7 +98,7 @@ public class AsmRemapper extends Remapper {
 			return mapFieldName(owner, name, desc);
 		}
 
-		ClassInstance cls = env.getClsByName(owner);
+		ClassInstance cls = getCls(owner);
 		if (cls == null) return name;
 
 		MethodInstance method = cls.getMethod(name, desc);
@@ -50,41 +108,41 @@ public class AsmRemapper extends Remapper {
 			return name;
 		}
 
-		return method.getName(nameType);
+		return getName(method);
 	}
 
 	public String mapMethodName(String owner, String name, String desc, boolean itf) {
-		ClassInstance cls = env.getClsByName(owner);
+		ClassInstance cls = getCls(owner);
 		if (cls == null) return name;
 
 		MethodInstance method = cls.resolveMethod(name, desc, itf);
 		if (method == null) return name;
 
-		return method.getName(nameType);
+		return getName(method);
 	}
 
 	public String mapArbitraryInvokeDynamicMethodName(String owner, String name) {
-		ClassInstance cls = env.getClsByName(owner);
+		ClassInstance cls = getCls(owner);
 		if (cls == null) return name;
 
 		MethodInstance method = cls.getMethod(name, null);
 		if (method == null) return name;
 
-		return method.getName(nameType);
+		return getName(method);
 	}
 
 	public String mapArgName(String className, String methodName, String methodDesc, String name, int asmIndex) {
-		ClassInstance cls = env.getClsByName(className);
+		ClassInstance cls = getCls(className);
 		if (cls == null) return name;
 
 		MethodInstance method = cls.getMethod(methodName, methodDesc);
 		if (method == null) return name;
 
-		return method.getArg(asmIndex).getName(nameType);
+		return getName(method.getArg(asmIndex));
 	}
 
 	public String mapLocalVariableName(String className, String methodName, String methodDesc, String name, String desc, int lvIndex, int startInsn, int endInsn) {
-		ClassInstance cls = env.getClsByName(className);
+		ClassInstance cls = getCls(className);
 		if (cls == null) return name;
 
 		MethodInstance method = cls.getMethod(methodName, methodDesc);
@@ -95,7 +153,7 @@ public class AsmRemapper extends Remapper {
 		if (var != null) {
 			assert var.getType().getId().equals(desc);
 
-			name = var.getName(nameType);
+			name = getName(var);
 		}
 
 		return name;
@@ -103,4 +161,6 @@ public class AsmRemapper extends Remapper {
 
 	private final ClassEnv env;
 	private final NameType nameType;
+	private final Map<String, ClassInstance> classes;
+	private final Set<Matchable<?>> dependencies;
 }
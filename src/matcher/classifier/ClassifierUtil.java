@@ -8,8 +8,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.ToIntBiFunction;
 import java.util.function.ToIntFunction;
@@ -698,6 +700,8 @@ public class ClassifierUtil {
 		List<RankResult<T>> ret = new ArrayList<>(dsts.length);
 
 		for (T dst : dsts) {
+			checkInterrupted(Thread.currentThread());
+
 			RankResult<T> result = rank(src, dst, classifiers, potentialEqualityCheck, env, maxMismatch);
 			if (result != null) ret.add(result);
 		}
@@ -708,14 +712,41 @@ public class ClassifierUtil {
 	}
 
 	public static <T extends Matchable<T>> List<RankResult<T>> rankParallel(T src, T[] dsts, Collection<IClassifier<T>> classifiers, BiPredicate<T, T> potentialEqualityCheck, ClassEnvironment env, double maxMismatch) {
+		return rankParallel(src, dsts, classifiers, potentialEqualityCheck, env, maxMismatch, null);
+	}
+
+	/**
+	 * Rank in parallel, passing each result to resultReceiver as soon as it is available.
+	 *
+	 * The receiver gets invoked concurrently from the worker threads in no particular order, the returned list
+	 * contains the same results in their final order.
+	 */
+	public static <T extends Matchable<T>> List<RankResult<T>> rankParallel(T src, T[] dsts, Collection<IClassifier<T>> classifiers, BiPredicate<T, T> potentialEqualityCheck, ClassEnvironment env, double maxMismatch,
+			Consumer<? super RankResult<T>> resultReceiver) {
+		Thread caller = Thread.currentThread();
+
 		return Arrays.stream(dsts)
 				.parallel()
-				.map(dst -> rank(src, dst, classifiers, potentialEqualityCheck, env, maxMismatch))
+				.map(dst -> {
+					checkInterrupted(caller);
+
+					RankResult<T> ret = rank(src, dst, classifiers, potentialEqualityCheck, env, maxMismatch);
+					if (ret != null && resultReceiver != null) resultReceiver.accept(ret);
+
+					return ret;
+				})
 				.filter(Objects::nonNull)
 				.sorted(Comparator.<RankResult<T>, Double>comparing(RankResult::getScore).reversed())
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Abort ranking for a cancelled GUI task, the parallel workers check the interrupt status of the calling thread.
+	 */
+	private static void checkInterrupted(Thread caller) {
+		if (caller.isInterrupted()) throw new CancellationException("ranking interrupted");
+	}
+
 	private static <T extends Matchable<T>> RankResult<T> rank(T src, T dst, Collection<IClassifier<T>> classifiers, BiPredicate<T, T> potentialEqualityCheck, ClassEnvironment env, double maxMismatch) {
 		assert src.getEnv() != dst.getEnv();
 
@@ -20,6 +20,7 @@ public class Config {
 				if (prefs.nodeExists(lastProjectSetupKey)) setProjectConfig(new ProjectConfig(prefs.node(lastProjectSetupKey)));
 				setInputDirs(loadList(prefs, lastInputDirsKey, Config::deserializePath));
 				setVerifyInputFiles(prefs.getBoolean(lastVerifyInputFilesKey, true));
+				setLowMemoryMode(prefs.getBoolean(lowMemoryModeKey, false));
 				setUidConfig(new UidConfig(prefs));
 			}
 		} catch (BackingStoreException e) { }
@@ -35,6 +36,13 @@ public class Config {
 		return verifyInputFiles;
 	}
 
+	/**
+	 * Whether input classes should only keep their code-less asm nodes after feature extraction.
+	 */
+	public static boolean getLowMemoryMode() {
+		return lowMemoryMode;
+	}
+
 	public static List<Path> getInputDirs() {
 		return inputDirs;
 	}
@@ -43,6 +51,13 @@ public class Config {
 		return uidConfig;
 	}
 
+	/**
+	 * Directory for persistent caches that can be regenerated at any time.
+	 */
+	public static Path getCacheDir() {
+		return cacheDir;
+	}
+
 	public static boolean setProjectConfig(ProjectConfig config) {
 		if (!config.isValid()) return false;
 
@@ -60,6 +75,10 @@ public class Config {
 		verifyInputFiles = value;
 	}
 
+	public static void setLowMemoryMode(boolean value) {
+		lowMemoryMode = value;
+	}
+
 	public static boolean setUidConfig(UidConfig config) {
 		if (!config.isValid()) return false;
 
@@ -75,6 +94,7 @@ public class Config {
 			if (projectConfig.isValid()) projectConfig.save(root.node(lastProjectSetupKey));
 			saveList(root.node(lastInputDirsKey), inputDirs);
 			root.putBoolean(lastVerifyInputFilesKey, verifyInputFiles);
+			root.putBoolean(lowMemoryModeKey, lowMemoryMode);
 			uidConfig.save(root);
 
 			root.flush();
@@ -113,9 +133,13 @@ public class Config {
 	private static final String lastProjectSetupKey = "last-project-setup";
 	private static final String lastInputDirsKey = "last-input-dirs";
 	private static final String lastVerifyInputFilesKey = "last-verify-input-files";
+	private static final String lowMemoryModeKey = "low-memory-mode";
+
+	private static final Path cacheDir = Paths.get(System.getProperty("user.home"), ".cache", "matcher");
 
 	private static ProjectConfig projectConfig = new ProjectConfig();
 	private static final List<Path> inputDirs = new ArrayList<>();
 	private static boolean verifyInputFiles = true;
+	private static boolean lowMemoryMode;
 	private static UidConfig uidConfig = new UidConfig();
 }
\ No newline at end of file
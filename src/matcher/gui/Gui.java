@@ -11,6 +11,8 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
 import java.util.stream.Collectors;
@@ -22,6 +24,7 @@ import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
@@ -40,8 +43,11 @@ import javafx.stage.Window;
 
 import matcher.Matcher;
 import matcher.NameType;
+import matcher.config.Config;
+import matcher.gui.GuiTaskScheduler.TaskPriority;
 import matcher.gui.menu.MainMenuBar;
 import matcher.srcprocess.BuiltinDecompiler;
+import matcher.srcprocess.SourceCache;
 import matcher.type.ClassEnvironment;
 import matcher.type.MatchType;
 
@@ -97,6 +103,7 @@ public class Gui extends Application {
 	@Override
 	public void stop() throws Exception {
 		threadPool.shutdown();
+		taskScheduler.shutdown();
 	}
 
 	public ClassEnvironment getEnv() {
@@ -231,7 +238,22 @@ public class Gui extends Application {
 		}
 	}
 
+	public SourceCache getSourceCache() {
+		return sourceCache;
+	}
+
+	/**
+	 * Get the cache for rendered bytecode html, its entries don't have a decompiler.
+	 */
+	public SourceCache getBytecodeCache() {
+		return bytecodeCache;
+	}
+
 	public void onProjectChange() {
+		// replaced instead of cleared to follow the project's low memory mode
+		sourceCache = createSourceCache();
+		bytecodeCache = createSourceCache();
+
 		for (IGuiComponent c : components) {
 			c.onProjectChange();
 		}
@@ -250,29 +272,58 @@ public class Gui extends Application {
 	}
 
 	public static <T> CompletableFuture<T> runAsyncTask(Callable<T> task) {
-		Task<T> jfxTask = new Task<T>() {
-			@Override
-			protected T call() throws Exception {
-				return task.call();
+		return taskScheduler.submit(null, TaskPriority.NORMAL, task);
+	}
+
+	/**
+	 * Run a task on the bounded GUI task scheduler, superseding any queued or running task with the same key.
+	 */
+	public static <T> CompletableFuture<T> runAsyncTask(Object key, TaskPriority priority, Callable<T> task) {
+		return taskScheduler.submit(key, priority, task);
+	}
+
+	/**
+	 * Run a long running bulk task on the shared thread pool, keeping it off the bounded task scheduler workers.
+	 *
+	 * The returned future completes on the FX thread, cancellation is up to the task.
+	 */
+	public static <T> CompletableFuture<T> runBackgroundTask(Callable<T> task) {
+		CompletableFuture<T> ret = new CompletableFuture<>();
+
+		threadPool.execute(() -> {
+			try {
+				T res = task.call();
+				Platform.runLater(() -> ret.complete(res));
+			} catch (Throwable t) {
+				Platform.runLater(() -> ret.completeExceptionally(t));
 			}
-		};
-
-		CompletableFuture<T> ret = new CompletableFuture<T>();
-
-		jfxTask.setOnSucceeded(event -> ret.complete(jfxTask.getValue()));
-		jfxTask.setOnFailed(event -> ret.completeExceptionally(jfxTask.getException()));
-		jfxTask.setOnCancelled(event -> ret.cancel(false));
-
-		threadPool.execute(jfxTask);
+		});
 
 		return ret;
 	}
 
+	public static GuiTaskScheduler getTaskScheduler() {
+		return taskScheduler;
+	}
+
 	public void runProgressTask(String labelText, Consumer<DoubleConsumer> task) {
 		runProgressTask(labelText, task, null, null);
 	}
 
 	public void runProgressTask(String labelText, Consumer<DoubleConsumer> task, Runnable onSuccess, Consumer<Throwable> onError) {
+		runProgressTask(labelText, (progressReceiver, cancelled) -> task.accept(progressReceiver), false, onSuccess, onError);
+	}
+
+	/**
+	 * Run a task with a progress dialog offering a cancel button.
+	 *
+	 * The task receives a cancellation flag to poll, neither onSuccess nor onError run after a cancellation.
+	 */
+	public void runCancellableProgressTask(String labelText, BiConsumer<DoubleConsumer, BooleanSupplier> task, Runnable onSuccess, Consumer<Throwable> onError) {
+		runProgressTask(labelText, task, true, onSuccess, onError);
+	}
+
+	private void runProgressTask(String labelText, BiConsumer<DoubleConsumer, BooleanSupplier> task, boolean cancellable, Runnable onSuccess, Consumer<Throwable> onError) {
 		Stage stage = new Stage(StageStyle.UTILITY);
 		stage.initOwner(this.scene.getWindow());
 		VBox pane = new VBox(GuiConstants.padding);
@@ -291,17 +342,23 @@ public class Gui extends Application {
 		progress.setPrefWidth(400);
 		pane.getChildren().add(progress);
 
-		stage.show();
-
 		Task<Void> jfxTask = new Task<Void>() {
 			@Override
 			protected Void call() throws Exception {
-				task.accept(cProgress -> Platform.runLater(() -> progress.setProgress(cProgress)));
+				task.accept(cProgress -> Platform.runLater(() -> progress.setProgress(cProgress)), this::isCancelled);
 
 				return null;
 			}
 		};
 
+		if (cancellable) {
+			Button cancelButton = new Button("Cancel");
+			cancelButton.setOnAction(event -> jfxTask.cancel(false));
+			pane.getChildren().add(cancelButton);
+		}
+
+		stage.show();
+
 		jfxTask.setOnSucceeded(event -> {
 			stage.hide();
 			if (onSuccess != null) onSuccess.run();
@@ -312,6 +369,8 @@ public class Gui extends Application {
 			if (onError != null) onError.accept(jfxTask.getException());
 		});
 
+		jfxTask.setOnCancelled(event -> stage.hide());
+
 		threadPool.execute(jfxTask);
 	}
 
@@ -404,19 +463,36 @@ public class Gui extends Application {
 		return file.toPath();
 	}
 
+	/**
+	 * Create a source html cache bounded to 64M chars (128 MiB), or 8M chars (16 MiB) in low memory mode.
+	 */
+	private static SourceCache createSourceCache() {
+		if (Config.getLowMemoryMode()) {
+			return new SourceCache(50, lowMemSourceCacheChars);
+		} else {
+			return new SourceCache(200, sourceCacheChars);
+		}
+	}
+
 	public enum SortKey {
 		Name, MappedName, MatchStatus, Similarity;
 	}
 
 	public static final List<Consumer<Gui>> loadListeners = new ArrayList<>();
 
+	private static final long sourceCacheChars = 64L << 20;
+	private static final long lowMemSourceCacheChars = 8L << 20;
+
 	private static final ExecutorService threadPool = Executors.newCachedThreadPool();
+	private static final GuiTaskScheduler taskScheduler = new GuiTaskScheduler(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
 
 	private ClassEnvironment env;
 	private Matcher matcher;
 
 	private Scene scene;
 	private final Collection<IGuiComponent> components = new ArrayList<>();
+	private SourceCache sourceCache = createSourceCache();
+	private SourceCache bytecodeCache = createSourceCache();
 
 	private MainMenuBar menu;
 	private MatchPaneSrc srcPane;
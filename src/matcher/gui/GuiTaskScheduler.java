@@ -0,0 +1,167 @@
+package matcher.gui;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javafx.application.Platform;
+
+/**
+ * Bounded, priority ordered executor for the GUI's background work (decompiling, ranking etc.).
+ *
+ * Tasks submitted with a key supersede the previous task with the same key: if still queued it gets dropped,
+ * if already running its thread gets interrupted. Long running tasks should poll the interrupt status to
+ * stop early, their results get discarded either way. The returned futures complete on the FX thread.
+ *
+ * Background tasks run on their own, smaller set of workers, so running bulk work never holds up interactive tasks.
+ */
+public final class GuiTaskScheduler {
+	public enum TaskPriority {
+		/**
+		 * Work the user is waiting for, e.g. the content for a new selection.
+		 */
+		INTERACTIVE,
+		/**
+		 * Updates of already displayed content.
+		 */
+		NORMAL,
+		/**
+		 * Speculative or bulk work.
+		 */
+		BACKGROUND;
+	}
+
+	GuiTaskScheduler(int workerCount) {
+		executor = createExecutor(workerCount, "gui task ");
+		backgroundExecutor = createExecutor(Math.max(1, workerCount - 1), "gui background task ");
+	}
+
+	private static ThreadPoolExecutor createExecutor(int workerCount, String threadName) {
+		AtomicInteger threadIdx = new AtomicInteger();
+
+		ThreadPoolExecutor ret = new ThreadPoolExecutor(workerCount, workerCount, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, threadName+threadIdx.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		ret.allowCoreThreadTimeOut(true);
+
+		return ret;
+	}
+
+	/**
+	 * Submit a task, replacing any queued or running task with an equal key.
+	 *
+	 * @param key coalescing key, usually the requesting view, or null to not replace anything
+	 */
+	public <T> CompletableFuture<T> submit(Object key, TaskPriority priority, Callable<T> task) {
+		ScheduledTask<T> scheduledTask = new ScheduledTask<>(key, priority, nextSequence.getAndIncrement(), task);
+
+		if (key != null) {
+			ScheduledTask<?> prev = activeTasks.put(key, scheduledTask);
+			if (prev != null) prev.cancel();
+		}
+
+		getExecutor(priority).execute(scheduledTask);
+
+		return scheduledTask.future;
+	}
+
+	/**
+	 * Cancel the queued or running task with the supplied key, if any.
+	 */
+	public void cancel(Object key) {
+		ScheduledTask<?> task = activeTasks.remove(key);
+		if (task != null) task.cancel();
+	}
+
+	void shutdown() {
+		executor.shutdownNow();
+		backgroundExecutor.shutdownNow();
+	}
+
+	private ThreadPoolExecutor getExecutor(TaskPriority priority) {
+		return priority == TaskPriority.BACKGROUND ? backgroundExecutor : executor;
+	}
+
+	private static void runOnFxThread(Runnable runnable) {
+		if (Platform.isFxApplicationThread()) {
+			runnable.run();
+		} else {
+			Platform.runLater(runnable);
+		}
+	}
+
+	private final class ScheduledTask<T> implements Runnable, Comparable<ScheduledTask<?>> {
+		ScheduledTask(Object key, TaskPriority priority, long sequence, Callable<T> task) {
+			this.key = key;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (cancelled) return;
+
+				runner = Thread.currentThread();
+			}
+
+			try {
+				T result = task.call();
+				runOnFxThread(() -> future.complete(result));
+			} catch (Throwable t) {
+				runOnFxThread(() -> future.completeExceptionally(cancelled ? new CancellationException() : t));
+			} finally {
+				synchronized (this) {
+					runner = null;
+					Thread.interrupted(); // don't leak a cancellation interrupt into the next task
+				}
+
+				if (key != null) activeTasks.remove(key, this);
+			}
+		}
+
+		void cancel() {
+			synchronized (this) {
+				if (cancelled) return;
+
+				cancelled = true;
+				if (runner != null) runner.interrupt();
+			}
+
+			getExecutor(priority).remove(this);
+			runOnFxThread(() -> future.cancel(false));
+		}
+
+		@Override
+		public int compareTo(ScheduledTask<?> o) {
+			int ret = priority.compareTo(o.priority);
+
+			return ret != 0 ? ret : Long.compare(sequence, o.sequence);
+		}
+
+		final Object key;
+		final TaskPriority priority;
+		final long sequence;
+		final Callable<T> task;
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		private volatile boolean cancelled;
+		private Thread runner;
+	}
+
+	private final ThreadPoolExecutor executor;
+	private final ThreadPoolExecutor backgroundExecutor;
+	private final Map<Object, ScheduledTask<?>> activeTasks = new ConcurrentHashMap<>();
+	private final AtomicLong nextSequence = new AtomicLong();
+}
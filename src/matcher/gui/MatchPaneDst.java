@@ -6,9 +6,14 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import javafx.animation.AnimationTimer;
 import javafx.scene.control.ListView;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.TextField;
@@ -22,6 +27,7 @@ import matcher.classifier.FieldClassifier;
 import matcher.classifier.MethodClassifier;
 import matcher.classifier.MethodVarClassifier;
 import matcher.classifier.RankResult;
+import matcher.gui.GuiTaskScheduler.TaskPriority;
 import matcher.type.ClassEnv;
 import matcher.type.ClassEnvironment;
 import matcher.type.ClassInstance;
@@ -61,6 +67,12 @@ public class MatchPaneDst extends SplitPane implements IFwdGuiComponent, ISelect
 			Matchable<?> oldSel = oldValue != null ? oldValue.getSubject() : null;
 			Matchable<?> newSel = newValue != null ? newValue.getSubject() : null;
 
+			if (srcListener.isStreaming()) {
+				// the list got replaced since the last announced selection, announce relative to what the components show
+				oldSel = srcListener.oldDstSelection;
+				srcListener.oldDstSelection = newSel;
+			}
+
 			announceSelectionChange(oldSel, newSel);
 		});
 
@@ -303,31 +315,7 @@ public class MatchPaneDst extends SplitPane implements IFwdGuiComponent, ISelect
 	}
 
 	private void updateResults(Matchable<?> oldSelection) {
-		List<RankResult<? extends Matchable<?>>> newItems = new ArrayList<>(rankResults.size());
-		String filterStr = filterField.getText();
-
-		if (filterStr.isBlank()) {
-			newItems.addAll(rankResults);
-		} else {
-			List<Object> stack = new ArrayList<>();
-
-			for (RankResult<? extends Matchable<?>> item : rankResults) {
-				stack.add(item);
-
-				Boolean res = evalFilter(stack, item);
-
-				if (res == null) { // eval failed
-					newItems.clear();
-					newItems.addAll(rankResults);
-					break;
-				} else if (res) {
-					newItems.add(item);
-				}
-
-				stack.clear();
-			}
-		}
-
+		List<RankResult<? extends Matchable<?>>> newItems = getFilteredResults();
 		RankResult<? extends Matchable<?>> best;
 
 		if (!newItems.isEmpty()) {
@@ -355,6 +343,57 @@ public class MatchPaneDst extends SplitPane implements IFwdGuiComponent, ISelect
 		suppressChangeEvents = false;
 	}
 
+	/**
+	 * Show intermediate results without selecting anything, a selection made by the user is kept if still listed.
+	 */
+	private void updatePartialResults() {
+		List<RankResult<? extends Matchable<?>>> newItems = getFilteredResults();
+		if (gui.isSortMatchesAlphabetically()) newItems.sort(getNameComparator());
+
+		RankResult<? extends Matchable<?>> selected = matchList.getSelectionModel().getSelectedItem();
+
+		suppressChangeEvents = true;
+
+		matchList.getItems().setAll(newItems);
+
+		if (selected != null && newItems.contains(selected)) {
+			matchList.getSelectionModel().select(selected);
+		} else {
+			matchList.getSelectionModel().clearSelection();
+		}
+
+		suppressChangeEvents = false;
+	}
+
+	private List<RankResult<? extends Matchable<?>>> getFilteredResults() {
+		List<RankResult<? extends Matchable<?>>> newItems = new ArrayList<>(rankResults.size());
+		String filterStr = filterField.getText();
+
+		if (filterStr.isBlank()) {
+			newItems.addAll(rankResults);
+		} else {
+			List<Object> stack = new ArrayList<>();
+
+			for (RankResult<? extends Matchable<?>> item : rankResults) {
+				stack.add(item);
+
+				Boolean res = evalFilter(stack, item);
+
+				if (res == null) { // eval failed
+					newItems.clear();
+					newItems.addAll(rankResults);
+					break;
+				} else if (res) {
+					newItems.add(item);
+				}
+
+				stack.clear();
+			}
+		}
+
+		return newItems;
+	}
+
 	@SuppressWarnings("unchecked")
 	private Boolean evalFilter(List<Object> stack, RankResult<? extends Matchable<?>> resB) {
 		final byte OP_TYPE_NONE = 0;
@@ -664,6 +703,7 @@ public class MatchPaneDst extends SplitPane implements IFwdGuiComponent, ISelect
 
 			oldSrcSelection = newSrcSelection;
 
+			stopStreaming();
 			rankResults.clear();
 			suppressChangeEvents = true;
 			matchList.getItems().clear();
@@ -674,12 +714,14 @@ public class MatchPaneDst extends SplitPane implements IFwdGuiComponent, ISelect
 			double maxMismatch = Double.POSITIVE_INFINITY;
 
 			Callable<List<? extends RankResult<? extends Matchable<?>>>> ranker;
+			Queue<RankResult<? extends Matchable<?>>> partialResults = null;
 
 			if (newSrcSelection == null) { // no class selected
 				return;
 			} else if (newSrcSelection instanceof ClassInstance) { // unmatched class or no member/method var selected
 				ClassInstance cls = (ClassInstance) newSrcSelection;
-				ranker = () -> ClassClassifier.rankParallel(cls, cmpClasses.toArray(new ClassInstance[0]), matchLevel, env, maxMismatch);
+				Queue<RankResult<? extends Matchable<?>>> queue = partialResults = new ConcurrentLinkedQueue<>();
+				ranker = () -> ClassClassifier.rankParallel(cls, cmpClasses.toArray(new ClassInstance[0]), matchLevel, env, maxMismatch, queue::add);
 			} else if (newSrcSelection instanceof MethodInstance) { // unmatched method or no method var selected
 				MethodInstance method = (MethodInstance) newSrcSelection;
 				ranker = () -> MethodClassifier.rank(method, method.getCls().getMatch().getMethods(), matchLevel, env, maxMismatch);
@@ -697,13 +739,24 @@ public class MatchPaneDst extends SplitPane implements IFwdGuiComponent, ISelect
 
 			final int cTaskId = ++taskId;
 
+			if (partialResults != null) {
+				streamedResults = partialResults;
+				lastStreamUpdate = System.nanoTime();
+				streamTimer.start();
+			}
+
 			// update matches list
-			Gui.runAsyncTask(ranker)
+			Gui.runAsyncTask(this, TaskPriority.INTERACTIVE, ranker)
 			.whenComplete((res, exc) -> {
-				if (exc != null) {
+				if (exc instanceof CancellationException) {
+					// superseded by a newer selection
+				} else if (exc != null) {
+					if (taskId == cTaskId) stopStreaming();
 					exc.printStackTrace();
 				} else if (taskId == cTaskId) {
-					assert rankResults.isEmpty();
+					// replace the partial results with the exact final ranking
+					stopStreaming();
+					rankResults.clear();
 					rankResults.addAll(res);
 
 					updateResults(oldDstSelection);
@@ -716,6 +769,38 @@ public class MatchPaneDst extends SplitPane implements IFwdGuiComponent, ISelect
 			});
 		}
 
+		boolean isStreaming() {
+			return streamedResults != null;
+		}
+
+		private void stopStreaming() {
+			streamTimer.stop();
+			streamedResults = null;
+			streamTopResults.clear();
+		}
+
+		/**
+		 * Move the results received since the last update into the list, limited to the best streamResultLimit ones.
+		 */
+		private void updateStreamedResults() {
+			boolean changed = false;
+			RankResult<? extends Matchable<?>> result;
+
+			while ((result = streamedResults.poll()) != null) {
+				streamTopResults.add(result);
+				if (streamTopResults.size() > streamResultLimit) streamTopResults.poll();
+				changed = true;
+			}
+
+			if (!changed) return;
+
+			rankResults.clear();
+			rankResults.addAll(streamTopResults);
+			rankResults.sort(getScoreComparator());
+
+			updatePartialResults();
+		}
+
 		private Matchable<?> getMatchableSrcSelection() {
 			Matchable<?> ret = srcPane.getSelectedMethodVar();
 
@@ -736,11 +821,27 @@ public class MatchPaneDst extends SplitPane implements IFwdGuiComponent, ISelect
 			return ret;
 		}
 
+		private final AnimationTimer streamTimer = new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				if (now - lastStreamUpdate < streamUpdateIntervalNs) return;
+
+				lastStreamUpdate = now;
+				updateStreamedResults();
+			}
+		};
+
+		private final PriorityQueue<RankResult<? extends Matchable<?>>> streamTopResults = new PriorityQueue<>(Comparator.comparingDouble(RankResult::getScore)); // min-heap of the best results so far
 		private int taskId;
 		private Matchable<?> oldSrcSelection;
 		private Matchable<?> oldDstSelection;
+		private Queue<RankResult<? extends Matchable<?>>> streamedResults;
+		private long lastStreamUpdate;
 	}
 
+	private static final int streamResultLimit = 100;
+	private static final long streamUpdateIntervalNs = 100_000_000L; // max. partial result refresh rate
+
 	private final Gui gui;
 	private final MatchPaneSrc srcPane;
 	private final Collection<IGuiComponent> components = new ArrayList<>();
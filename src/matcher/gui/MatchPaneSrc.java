@@ -2,13 +2,19 @@ package matcher.gui;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
+import javafx.animation.AnimationTimer;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Orientation;
 import javafx.scene.Node;
 import javafx.scene.control.ListView;
@@ -19,6 +25,9 @@ import javafx.scene.control.TreeView;
 import matcher.NameType;
 import matcher.Util;
 import matcher.gui.Gui.SortKey;
+import matcher.gui.GuiTaskScheduler.TaskPriority;
+import matcher.gui.tab.BytecodeTab;
+import matcher.gui.tab.SourcecodeTab;
 import matcher.type.ClassInstance;
 import matcher.type.FieldInstance;
 import matcher.type.MatchType;
@@ -178,9 +187,12 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 	private String getCellStyle(Matchable<?> item) {
 		if (gui.isUseDiffColors()) {
 			final float epsilon = 1e-5f;
-			float similarity = item.getSimilarity();
+			float similarity = item.getCachedSimilarity();
 
-			if (similarity < epsilon) {
+			if (Float.isNaN(similarity)) { // not computed yet, redrawn once the background update finished
+				updateSimilarities();
+				return "";
+			} else if (similarity < epsilon) {
 				return "-fx-text-fill: darkred;";
 			} else if (similarity > 1 - epsilon) {
 				return "-fx-text-fill: darkgreen;";
@@ -242,6 +254,45 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 		}
 
 		IFwdGuiComponent.super.onClassSelect(cls);
+
+		if (cls != null) {
+			SourcecodeTab.prefetch(gui, cls.getMatch(), getNeighborClasses());
+			if (cls.hasMatch()) BytecodeTab.prefetch(gui, cls.getMatch());
+		}
+	}
+
+	/**
+	 * Get the classes next to the selected class in the list or package, in the order the user likely moves to them.
+	 */
+	private List<ClassInstance> getNeighborClasses() {
+		List<?> items;
+		int idx;
+
+		if (useClassTree) {
+			TreeItem<Object> item = classTree.getSelectionModel().getSelectedItem();
+			if (item == null || item.getParent() == null) return Collections.emptyList();
+
+			items = item.getParent().getChildren();
+			idx = items.indexOf(item);
+		} else {
+			items = classList.getItems();
+			idx = classList.getSelectionModel().getSelectedIndex();
+		}
+
+		if (idx < 0) return Collections.emptyList();
+
+		List<ClassInstance> ret = new ArrayList<>(prefetchOffsets.length);
+
+		for (int offset : prefetchOffsets) {
+			int neighborIdx = idx + offset;
+			if (neighborIdx < 0 || neighborIdx >= items.size()) continue;
+
+			Object neighbor = items.get(neighborIdx);
+			if (neighbor instanceof TreeItem<?>) neighbor = ((TreeItem<?>) neighbor).getValue();
+			if (neighbor instanceof ClassInstance) ret.add((ClassInstance) neighbor);
+		}
+
+		return ret;
 	}
 
 	@Override
@@ -275,6 +326,35 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 		}
 	}
 
+	/**
+	 * Select and reveal a class, does nothing if the class isn't listed.
+	 */
+	public void selectClass(ClassInstance cls) {
+		if (useClassTree) {
+			for (TreeItem<Object> pkgItem : classTree.getRoot().getChildren()) {
+				for (TreeItem<Object> item : pkgItem.getChildren()) {
+					if (item.getValue() == cls) {
+						pkgItem.setExpanded(true);
+						classTree.getSelectionModel().select(item);
+						classTree.scrollTo(classTree.getRow(item));
+						return;
+					}
+				}
+			}
+		} else {
+			classList.getSelectionModel().select(cls);
+			classList.scrollTo(cls);
+		}
+	}
+
+	/**
+	 * Select and reveal a member of the selected class.
+	 */
+	public void selectMember(MemberInstance<?> member) {
+		memberList.getSelectionModel().select(member);
+		memberList.scrollTo(member);
+	}
+
 	@Override
 	public MemberInstance<?> getSelectedMember() {
 		return memberList.getSelectionModel().getSelectedItem();
@@ -334,6 +414,8 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 			updateLists(true, true);
 		}
 
+		updateSimilarities();
+
 		IFwdGuiComponent.super.onViewChange();
 	}
 
@@ -354,50 +436,81 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 		} else {
 			if (updateContents) {
 				classList.setItems(FXCollections.observableList(classes));
+				classes.sort(clsComparator);
 			} else {
-				classes = classList.getItems();
+				sortIfUnsorted(classList.getItems(), clsComparator);
 			}
 
-			classes.sort(clsComparator);
 			classList.getSelectionModel().select(selClass);
 		}
 
 		if (updateMembers) {
-			memberList.getItems().sort(memberComparator);
+			sortIfUnsorted(memberList.getItems(), memberComparator);
 			memberList.getSelectionModel().select(selMember);
 		}
 
 		suppressChangeEvents = false;
+
+		if (gui.getSortKey() == SortKey.Similarity && gui.getEnv().hasPendingSimilarities()) {
+			updateSimilarities(); // sorted with placeholders for missing similarities
+		}
+	}
+
+	/**
+	 * Sort the list only if its order isn't already consistent with the comparator, which avoids a permutation
+	 * event for the common case of changes not affecting the order.
+	 */
+	private static <T> void sortIfUnsorted(List<T> list, Comparator<? super T> comparator) {
+		for (int i = 1; i < list.size(); i++) {
+			if (comparator.compare(list.get(i - 1), list.get(i)) > 0) {
+				list.sort(comparator);
+				return;
+			}
+		}
 	}
 
+	/**
+	 * Bring the class tree in line with the sorted classes, reusing the existing package and class items.
+	 *
+	 * Only package items whose class sequence changed get their children replaced, class items that stay within
+	 * their package item are kept. This keeps the folding state and avoids rebuilding the whole tree for the
+	 * typical update that only moves a few classes.
+	 */
 	private void updateClassTree(List<ClassInstance> newClasses, Comparator<ClassInstance> sortComparator, ClassInstance selectedClass) {
-		Map<String, List<TreeItem<Object>>> pkgNodeMap = null; // reuse pkg level nodes to keep their folding state
+		Map<String, List<TreeItem<Object>>> pkgNodeMap = new HashMap<>(100); // reuse pkg level nodes to keep their folding state
+		Map<ClassInstance, TreeItem<Object>> clsNodeMap = new IdentityHashMap<>();
+		List<TreeItem<Object>> rootItems = classTree.getRoot().getChildren();
 
-		if (newClasses == null) {
-			newClasses = new ArrayList<>(2000);
-			pkgNodeMap = new HashMap<>(100);
+		for (TreeItem<Object> pkgItem : rootItems) {
+			pkgNodeMap.computeIfAbsent((String) pkgItem.getValue(), ignore -> new ArrayList<>()).add(pkgItem);
 
-			for (TreeItem<Object> pkgItem : classTree.getRoot().getChildren()) {
-				pkgNodeMap.computeIfAbsent((String) pkgItem.getValue(), ignore -> new ArrayList<>()).add(pkgItem);
+			for (TreeItem<Object> item : pkgItem.getChildren()) {
+				clsNodeMap.put((ClassInstance) item.getValue(), item);
+			}
+		}
+
+		if (newClasses == null) {
+			newClasses = new ArrayList<>(clsNodeMap.size());
 
+			for (TreeItem<Object> pkgItem : rootItems) {
 				for (TreeItem<Object> item : pkgItem.getChildren()) {
 					newClasses.add((ClassInstance) item.getValue());
 				}
-
-				pkgItem.getChildren().clear();
 			}
-		}
 
-		newClasses.sort(sortComparator);
+			sortIfUnsorted(newClasses, sortComparator);
+		} else {
+			newClasses.sort(sortComparator);
+		}
 
 		NameType nameType = gui.getNameType()
 				.withMapped(gui.getSortKey() == SortKey.MappedName)
 				.withUnmatchedTmp(true);
 
-		List<TreeItem<Object>> items = classTree.getRoot().getChildren();
-		items.clear();
+		List<TreeItem<Object>> newRootItems = new ArrayList<>();
+		List<TreeItem<Object>> pkgItems = new ArrayList<>();
+		TreeItem<Object> pkgItem = null;
 		String pkg = null;
-		List<TreeItem<Object>> pkgItems = null;
 		TreeItem<Object> toSelect = null;
 
 		for (ClassInstance cls : newClasses) {
@@ -417,32 +530,68 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 			}
 
 			if (!name.equals(pkg)) {
-				TreeItem<Object> item;
+				if (pkgItem != null) setChildren(pkgItem, pkgItems);
+
 				List<TreeItem<Object>> pkgNode;
 
-				if (pkgNodeMap != null && (pkgNode = pkgNodeMap.remove(name)) != null) {
-					item = pkgNode.remove(0);
+				if ((pkgNode = pkgNodeMap.remove(name)) != null) {
+					pkgItem = pkgNode.remove(0);
 					if (!pkgNode.isEmpty()) pkgNodeMap.put(name, pkgNode);
 				} else {
-					item = new TreeItem<>(name);
+					pkgItem = new TreeItem<>(name);
 				}
 
-				items.add(item);
-				pkgItems = item.getChildren();
+				newRootItems.add(pkgItem);
+				pkgItems.clear();
 				pkg = name;
 			}
 
-			TreeItem<Object> item = new TreeItem<>(cls);
+			TreeItem<Object> item = clsNodeMap.get(cls);
+
+			if (item == null || item.getParent() != pkgItem) { // new or moved to another package item
+				item = new TreeItem<>(cls);
+			}
+
 			pkgItems.add(item);
 
 			if (cls == selectedClass) toSelect = item;
 		}
 
+		if (pkgItem != null) setChildren(pkgItem, pkgItems);
+
+		// package items that are no longer needed still reference moved classes' old items, drop those
+		for (List<TreeItem<Object>> unused : pkgNodeMap.values()) {
+			for (TreeItem<Object> item : unused) {
+				item.getChildren().clear();
+			}
+		}
+
+		setChildren(classTree.getRoot(), newRootItems);
+
 		if (toSelect != null) {
 			classTree.getSelectionModel().select(toSelect);
 		}
 	}
 
+	private static void setChildren(TreeItem<Object> parent, List<TreeItem<Object>> children) {
+		ObservableList<TreeItem<Object>> current = parent.getChildren();
+
+		if (current.size() == children.size()) {
+			boolean equal = true;
+
+			for (int i = 0; i < children.size(); i++) {
+				if (current.get(i) != children.get(i)) {
+					equal = false;
+					break;
+				}
+			}
+
+			if (equal) return;
+		}
+
+		current.setAll(children);
+	}
+
 	private void refreshClassList() {
 		if (useClassTree) {
 			classTree.refresh();
@@ -451,66 +600,76 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	private Comparator<ClassInstance> getClassComparator() {
+		Function<ClassInstance, String> nameKey = getNameKey(false);
+		Function<ClassInstance, String> mappedNameKey = getNameKey(true);
+
 		switch (gui.getSortKey()) {
 		case Name:
-			return Comparator.comparing(this::getName, clsNameComparator);
+			return Comparator.comparing(nameKey, clsNameComparator);
 		case MappedName:
-			return Comparator.comparing(this::getMappedName, clsNameComparator);
+			return Comparator.comparing(mappedNameKey, clsNameComparator);
 		case MatchStatus:
-			return ((Comparator<ClassInstance>) matchStatusComparator).thenComparing(this::getName, clsNameComparator);
+			return MatchPaneSrc.<ClassInstance>createMatchStatusComparator().thenComparing(nameKey, clsNameComparator);
 		case Similarity:
-			return ((Comparator<ClassInstance>) similarityComparator).thenComparing(this::getName, clsNameComparator);
+			return MatchPaneSrc.<ClassInstance>createSimilarityComparator().thenComparing(nameKey, clsNameComparator);
 		}
 
 		throw new IllegalStateException("unhandled sort key: "+gui.getSortKey());
 	}
 
-	@SuppressWarnings("unchecked")
 	private Comparator<MemberInstance<?>> getMemberComparator() {
+		Function<MemberInstance<?>, String> nameKey = getNameKey(false);
+		Function<MemberInstance<?>, String> mappedNameKey = getNameKey(true);
+
 		switch (gui.getSortKey()) {
 		case Name:
-			return memberTypeComparator.thenComparing(this::getName, clsNameComparator);
+			return memberTypeComparator.thenComparing(nameKey, clsNameComparator);
 		case MappedName:
-			return memberTypeComparator.thenComparing(this::getMappedName, clsNameComparator);
+			return memberTypeComparator.thenComparing(mappedNameKey, clsNameComparator);
 		case MatchStatus:
-			return ((Comparator<MemberInstance<?>>) matchStatusComparator).thenComparing(memberTypeComparator).thenComparing(this::getName, clsNameComparator);
+			return MatchPaneSrc.<MemberInstance<?>>createMatchStatusComparator().thenComparing(memberTypeComparator).thenComparing(nameKey, clsNameComparator);
 		case Similarity:
-			return ((Comparator<MemberInstance<?>>) similarityComparator).thenComparing(memberTypeComparator).thenComparing(this::getName, clsNameComparator);
+			return MatchPaneSrc.<MemberInstance<?>>createSimilarityComparator().thenComparing(memberTypeComparator).thenComparing(nameKey, clsNameComparator);
 		}
 
 		throw new IllegalStateException("unhandled sort key: "+gui.getSortKey());
 	}
 
-	@SuppressWarnings("unchecked")
 	private Comparator<MethodVarInstance> getVarComparator() {
+		Function<MethodVarInstance, String> nameKey = getNameKey(false);
+		Function<MethodVarInstance, String> mappedNameKey = getNameKey(true);
+
 		switch (gui.getSortKey()) {
 		case Name:
-			return varTypeComparator.thenComparing(this::getName, clsNameComparator);
+			return varTypeComparator.thenComparing(nameKey, clsNameComparator);
 		case MappedName:
-			return varTypeComparator.thenComparing(this::getMappedName, clsNameComparator);
+			return varTypeComparator.thenComparing(mappedNameKey, clsNameComparator);
 		case MatchStatus:
-			return ((Comparator<MethodVarInstance>) matchStatusComparator).thenComparing(varTypeComparator).thenComparing(this::getName, clsNameComparator);
+			return MatchPaneSrc.<MethodVarInstance>createMatchStatusComparator().thenComparing(varTypeComparator).thenComparing(nameKey, clsNameComparator);
 		case Similarity:
-			return ((Comparator<MethodVarInstance>) similarityComparator).thenComparing(varTypeComparator).thenComparing(this::getName, clsNameComparator);
+			return MatchPaneSrc.<MethodVarInstance>createSimilarityComparator().thenComparing(varTypeComparator).thenComparing(nameKey, clsNameComparator);
 		}
 
 		throw new IllegalStateException("unhandled sort key: "+gui.getSortKey());
 	}
 
-	private String getName(Matchable<?> m) {
-		return getName(m, true);
+	/**
+	 * Create a sort key extractor for the name type selected at the time of the call.
+	 *
+	 * The name type is resolved once per sort instead of once per comparison, the names themselves come from
+	 * the matchables' display name caches.
+	 */
+	private <T extends Matchable<?>> Function<T, String> getNameKey(boolean mapped) {
+		NameType nameType = gui.getNameType().withMapped(mapped).withUnmatchedTmp(true);
+
+		return m -> m.getDisplayName(nameType, m instanceof ClassInstance);
 	}
 
 	private String getName(Matchable<?> m, boolean full) {
 		return m.getDisplayName(gui.getNameType().withMapped(false).withUnmatchedTmp(true), full && m instanceof ClassInstance);
 	}
 
-	private String getMappedName(Matchable<?> m) {
-		return getMappedName(m, true);
-	}
-
 	private String getMappedName(Matchable<?> m, boolean full) {
 		return m.getDisplayName(gui.getNameType().withMapped(true).withUnmatchedTmp(true), full && m instanceof ClassInstance);
 	}
@@ -525,8 +684,22 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 		IFwdGuiComponent.super.onMappingChange();
 	}
 
+	/**
+	 * Queue the match change for the next frame, bursts of match changes such as streamed auto match results
+	 * get applied in a single refresh.
+	 */
 	@Override
 	public void onMatchChange(Set<MatchType> types) {
+		pendingMatchChanges.addAll(types);
+		matchChangeTimer.start();
+	}
+
+	private void applyMatchChanges() {
+		matchChangeTimer.stop();
+
+		Set<MatchType> types = EnumSet.copyOf(pendingMatchChanges);
+		pendingMatchChanges.clear();
+
 		if (gui.getSortKey() == SortKey.MatchStatus || gui.getSortKey() == SortKey.Similarity) {
 			updateLists(false, true);
 		} else if (types.contains(MatchType.Class)) {
@@ -543,14 +716,91 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 			varList.refresh();
 		}
 
+		updateSimilarities();
+
 		IFwdGuiComponent.super.onMatchChange(types);
 	}
 
+	/**
+	 * Recompute the class similarities affected by match changes and compute the ones shown or sorted as missing in
+	 * the background, then redraw and re-sort with the new values. Requests while an update is running are coalesced into a single follow-up update.
+	 */
+	private void updateSimilarities() {
+		if (!gui.isUseDiffColors() && gui.getSortKey() != SortKey.Similarity) return;
+
+		if (similarityUpdateRunning) {
+			similarityUpdateQueued = true;
+			return;
+		}
+
+		similarityUpdateRunning = true;
+
+		Gui.runAsyncTask(null, TaskPriority.BACKGROUND, () -> gui.getEnv().updateSimilarities())
+		.whenComplete((changed, exc) -> {
+			similarityUpdateRunning = false;
+
+			if (exc != null) {
+				exc.printStackTrace();
+			} else {
+				if (changed) {
+					if (gui.getSortKey() == SortKey.Similarity) updateLists(false, true);
+					refreshClassList();
+				}
+
+				memberList.refresh(); // member similarities of updated classes were reset
+			}
+
+			if (similarityUpdateQueued) {
+				similarityUpdateQueued = false;
+				updateSimilarities();
+			}
+		});
+	}
+
+	/**
+	 * Create a match status comparator for a single sort, it determines each item's status only once.
+	 */
+	private static <T extends Matchable<?>> Comparator<T> createMatchStatusComparator() {
+		Map<Matchable<?>, Integer> ranks = new IdentityHashMap<>();
+
+		return Comparator.comparingInt(m -> ranks.computeIfAbsent(m, MatchPaneSrc::getMatchStatusRank));
+	}
+
+	/**
+	 * Create a similarity comparator for a single sort, it reads each item's cached similarity only once.
+	 *
+	 * The background similarity update may change the cached values mid-sort, which would break the comparator's
+	 * consistency if they were read on every comparison.
+	 */
+	private static <T extends Matchable<?>> Comparator<T> createSimilarityComparator() {
+		Map<Matchable<?>, Float> similarities = new IdentityHashMap<>();
+
+		return Comparator.comparingDouble(m -> similarities.computeIfAbsent(m, Matchable::getCachedSimilarity));
+	}
+
+	private static int getMatchStatusRank(Matchable<?> m) {
+		// sort order: unmatched partially-matched fully-matched-shallow fully-matched-recursive unmatchable
+
+		if (!m.hasPotentialMatch()) {
+			return 4;
+		} else if (!m.hasMatch()) {
+			return 0;
+		} else if (!m.isFullyMatched(false)) {
+			return 1;
+		} else if (!m.isFullyMatched(true)) {
+			return 2;
+		} else {
+			return 3;
+		}
+	}
+
 	@Override
 	public Collection<IGuiComponent> getComponents() {
 		return components;
 	}
 
+	private static final int[] prefetchOffsets = { 1, -1, 2, 3 }; // list neighbors to decompile in advance, by likelihood
+
 	private static final Comparator<MemberInstance<?>> memberTypeComparator = (a, b) -> {
 		boolean aIsMethod = a instanceof MethodInstance;
 		boolean bIsMethod = b instanceof MethodInstance;
@@ -570,45 +820,6 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 		}
 	};
 
-	private static final Comparator<? extends Matchable<?>> matchStatusComparator = (a, b) -> {
-		// sort order: unmatched partially-matched fully-matched-shallow fully-matched-recursive unmatchable
-
-		boolean aMatchable = a.hasPotentialMatch();
-		boolean bMatchable = b.hasPotentialMatch();
-
-		if (aMatchable != bMatchable) {
-			return aMatchable ? -1 : 1;
-		} else if (!aMatchable) {
-			return 0;
-		} else if (a.hasMatch() != b.hasMatch()) {
-			return a.hasMatch() ? 1 : -1;
-		} else if (!a.hasMatch()) {
-			return 0;
-		}
-
-		boolean aFull = a.isFullyMatched(false);
-		boolean bFull = b.isFullyMatched(false);
-
-		if (aFull != bFull) {
-			return aFull ? 1 : -1;
-		} else if (!aFull) {
-			return 0;
-		}
-
-		aFull = a.isFullyMatched(true);
-		bFull = b.isFullyMatched(true);
-
-		if (aFull != bFull) {
-			return aFull ? 1 : -1;
-		}
-
-		return 0;
-	};
-
-	private static final Comparator<? extends Matchable<?>> similarityComparator = (a, b) -> {
-		return Float.compare(a.getSimilarity(), b.getSimilarity());
-	};
-
 	private static final Comparator<String> clsNameComparator = Util::compareNatural;
 
 	private final Gui gui;
@@ -620,4 +831,13 @@ public class MatchPaneSrc extends SplitPane implements IFwdGuiComponent, ISelect
 	private final ListView<MethodVarInstance> varList = new ListView<>();
 
 	private boolean suppressChangeEvents;
+	private final Set<MatchType> pendingMatchChanges = EnumSet.noneOf(MatchType.class);
+	private final AnimationTimer matchChangeTimer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			applyMatchChanges();
+		}
+	};
+	private boolean similarityUpdateRunning;
+	private boolean similarityUpdateQueued;
 }
@@ -0,0 +1,70 @@
+package matcher.gui.menu;
+
+import javafx.collections.FXCollections;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.RadioButton;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+
+import matcher.NameType;
+import matcher.gui.GuiConstants;
+
+class ExportJarPane extends GridPane {
+	ExportJarPane() {
+		init();
+	}
+
+	private void init() {
+		setHgap(GuiConstants.padding);
+		setVgap(GuiConstants.padding);
+
+		add(new Label("Environment:"), 0, 0);
+
+		HBox hBox = new HBox();
+		ToggleGroup envGroup = new ToggleGroup();
+
+		rbA = new RadioButton("A (left)");
+		rbA.setToggleGroup(envGroup);
+		hBox.getChildren().add(rbA);
+
+		rbB = new RadioButton("B (right)");
+		rbB.setToggleGroup(envGroup);
+		rbB.setSelected(true);
+		hBox.getChildren().add(rbB);
+
+		add(hBox, 1, 0);
+
+		add(new Label("Name type:"), 0, 1);
+		cbNameType = new ComboBox<>(FXCollections.observableArrayList(NameType.values()));
+		cbNameType.getSelectionModel().select(NameType.MAPPED_PLAIN);
+		add(cbNameType, 1, 1);
+
+		cbCompress = new CheckBox("compress entries");
+		cbCompress.setSelected(true);
+		add(cbCompress, 0, 2, 2, 1);
+	}
+
+	public JarExportSettings getSettings() {
+		return new JarExportSettings(rbA.isSelected(), cbNameType.getValue(), cbCompress.isSelected());
+	}
+
+	public static class JarExportSettings {
+		public JarExportSettings(boolean a, NameType nameType, boolean compress) {
+			this.a = a;
+			this.nameType = nameType;
+			this.compress = compress;
+		}
+
+		public final boolean a;
+		public final NameType nameType;
+		public final boolean compress;
+	}
+
+	private RadioButton rbA;
+	private RadioButton rbB;
+	private ComboBox<NameType> cbNameType;
+	private CheckBox cbCompress;
+}
@@ -2,6 +2,7 @@ package matcher.gui.menu;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -11,6 +12,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import javafx.application.Platform;
@@ -28,16 +31,22 @@ import javafx.stage.Window;
 import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.format.MappingFormat;
 
+import matcher.NameType;
 import matcher.Util;
 import matcher.config.Config;
 import matcher.config.ProjectConfig;
 import matcher.gui.Gui;
 import matcher.gui.Gui.SelectedFile;
+import matcher.gui.GuiUtil;
+import matcher.gui.menu.ExportJarPane.JarExportSettings;
 import matcher.gui.menu.LoadMappingsPane.MappingsLoadSettings;
 import matcher.gui.menu.LoadProjectPane.ProjectLoadSettings;
 import matcher.gui.menu.SaveMappingsPane.MappingsSaveSettings;
 import matcher.mapping.Mappings;
 import matcher.serdes.MatchesIo;
+import matcher.serdes.RemappedJarIo;
+import matcher.srcprocess.BuiltinDecompiler;
+import matcher.srcprocess.SourceExporter;
 import matcher.type.ClassEnvironment;
 import matcher.type.MatchType;
 
@@ -59,6 +68,11 @@ public class FileMenu extends Menu {
 		getItems().add(menuItem);
 		menuItem.setOnAction(event -> loadProject());
 
+		GuiUtil.addCheckMenuItem(this, "Low memory mode", Config.getLowMemoryMode(), value -> {
+			Config.setLowMemoryMode(value);
+			Config.saveAsLast();
+		});
+
 		getItems().add(new SeparatorMenuItem());
 
 		menuItem = new MenuItem("Load mappings");
@@ -100,6 +114,20 @@ public class FileMenu extends Menu {
 
 		getItems().add(new SeparatorMenuItem());
 
+		menuItem = new MenuItem("Export sources A");
+		getItems().add(menuItem);
+		menuItem.setOnAction(event -> exportSources(true));
+
+		menuItem = new MenuItem("Export sources B");
+		getItems().add(menuItem);
+		menuItem.setOnAction(event -> exportSources(false));
+
+		menuItem = new MenuItem("Export remapped jar");
+		getItems().add(menuItem);
+		menuItem.setOnAction(event -> exportJar());
+
+		getItems().add(new SeparatorMenuItem());
+
 		menuItem = new MenuItem("Exit");
 		getItems().add(menuItem);
 		menuItem.setOnAction(event -> Platform.exit());
@@ -424,5 +452,105 @@ public class FileMenu extends Menu {
 		}
 	}
 
+	private void exportSources(boolean sideA) {
+		Path dir = Gui.requestDir("Select source export dir", gui.getScene().getWindow());
+		if (dir == null) return;
+
+		BuiltinDecompiler decompiler = gui.getDecompiler();
+		NameType nameType = gui.getNameType().withUnmatchedTmp(sideA);
+		AtomicReference<SourceExporter.Result> result = new AtomicReference<>();
+
+		gui.runCancellableProgressTask(
+				String.format("Exporting %s sources with %s...", sideA ? "A" : "B", decompiler.name),
+				(progressReceiver, cancelled) -> result.set(SourceExporter.export(gui.getEnv(), sideA, decompiler, nameType, dir, progressReceiver, cancelled)),
+				() -> {
+					SourceExporter.Result res = result.get();
+					showExportResult("Source export", res.exportedCount, res.failures, failure -> failure.name, failure -> failure.cause);
+				},
+				exc -> {
+					exc.printStackTrace();
+					gui.showAlert(AlertType.ERROR, "Source export error", "Error while exporting sources", exc.toString());
+				});
+	}
+
+	private void exportJar() {
+		SelectedFile res = Gui.requestFile("Export remapped jar", gui.getScene().getWindow(), Arrays.asList(new FileChooser.ExtensionFilter("Jar", "*.jar")), false);
+		if (res == null) return;
+
+		Path path = res.path;
+
+		if (!path.getFileName().toString().toLowerCase(Locale.ENGLISH).endsWith(".jar")) {
+			path = path.resolveSibling(path.getFileName().toString()+".jar");
+		}
+
+		if (Files.isDirectory(path)) {
+			gui.showAlert(AlertType.ERROR, "Export error", "Invalid file selection", "The selected file is a directory.");
+			return;
+		}
+
+		Dialog<JarExportSettings> dialog = new Dialog<>();
+		//dialog.initModality(Modality.APPLICATION_MODAL);
+		dialog.setResizable(true);
+		dialog.setTitle("Jar export settings");
+		dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+		ExportJarPane content = new ExportJarPane();
+		dialog.getDialogPane().setContent(content);
+		dialog.setResultConverter(button -> button == ButtonType.OK ? content.getSettings() : null);
+
+		JarExportSettings settings = dialog.showAndWait().orElse(null);
+		if (settings == null) return;
+
+		Path file = path;
+		AtomicReference<RemappedJarIo.Result> result = new AtomicReference<>();
+
+		gui.runCancellableProgressTask(
+				String.format("Exporting remapped jar %s...", settings.a ? "A" : "B"),
+				(progressReceiver, cancelled) -> {
+					try {
+						result.set(RemappedJarIo.write(gui.getEnv(), settings.a, settings.nameType, settings.compress, file, progressReceiver, cancelled));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				},
+				() -> {
+					RemappedJarIo.Result ret = result.get();
+					showExportResult("Jar export", ret.writtenCount, ret.failures, failure -> failure.name, failure -> failure.cause);
+				},
+				exc -> {
+					exc.printStackTrace();
+					gui.showAlert(AlertType.ERROR, "Jar export error", "Error while exporting the remapped jar", exc.toString());
+				});
+	}
+
+	/**
+	 * Show the outcome of an export, each failure gets logged with its stack trace and the first ones are listed.
+	 */
+	private <F> void showExportResult(String title, int exportedCount, List<F> failures, Function<F, String> nameGetter, Function<F, Throwable> causeGetter) {
+		if (failures.isEmpty()) {
+			gui.showAlert(AlertType.INFORMATION, title, title+" finished", String.format("Exported %d classes.", exportedCount));
+			return;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Exported %d classes, %d failed:", exportedCount, failures.size()));
+
+		for (F failure : failures) {
+			String name = nameGetter.apply(failure);
+			Throwable cause = causeGetter.apply(failure);
+
+			System.err.println("Error exporting "+name+":");
+			cause.printStackTrace();
+
+			if (sb.length() < maxFailureReportLength) {
+				sb.append(String.format("%n%s: %s", name, cause));
+			}
+		}
+
+		gui.showAlert(AlertType.WARNING, title, title+" finished with errors", sb.toString());
+	}
+
+	private static final int maxFailureReportLength = 2000;
+
 	private final Gui gui;
 }
@@ -1,14 +1,24 @@
 package matcher.gui.menu;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.Locale;
 
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.SeparatorMenuItem;
+import javafx.stage.FileChooser;
+import javafx.stage.FileChooser.ExtensionFilter;
 
 import matcher.Matcher.MatchingStatus;
+import matcher.SimilarityReport;
 import matcher.gui.Gui;
+import matcher.gui.Gui.SelectedFile;
+import matcher.serdes.SimilarityReportIo;
 import matcher.type.MatchType;
 
 public class MatchingMenu extends Menu {
@@ -52,6 +62,10 @@ public class MatchingMenu extends Menu {
 		menuItem = new MenuItem("Status");
 		getItems().add(menuItem);
 		menuItem.setOnAction(event -> showMatchingStatus());
+
+		menuItem = new MenuItem("Similarity report");
+		getItems().add(menuItem);
+		menuItem.setOnAction(event -> saveSimilarityReport());
 	}
 
 	public void autoMatchAll() {
@@ -115,5 +129,43 @@ public class MatchingMenu extends Menu {
 						));
 	}
 
+	public void saveSimilarityReport() {
+		ExtensionFilter csvFilter = new FileChooser.ExtensionFilter("CSV", "*.csv");
+		ExtensionFilter jsonFilter = new FileChooser.ExtensionFilter("JSON", "*.json");
+		SelectedFile res = Gui.requestFile("Save similarity report", gui.getScene().getWindow(), Arrays.asList(csvFilter, jsonFilter), false);
+		if (res == null) return;
+
+		boolean json = res.filter == jsonFilter || res.path.getFileName().toString().toLowerCase(Locale.ENGLISH).endsWith(".json");
+		String ext = json ? ".json" : ".csv";
+		Path path = res.path;
+
+		if (!path.getFileName().toString().toLowerCase(Locale.ENGLISH).endsWith(ext)) {
+			path = path.resolveSibling(path.getFileName().toString()+ext);
+		}
+
+		Path cPath = path;
+
+		gui.runCancellableProgressTask(
+				"Computing similarity report...",
+				(progressReceiver, cancelled) -> {
+					SimilarityReport report = SimilarityReport.create(gui.getEnv(), progressReceiver, cancelled);
+
+					try {
+						if (json) {
+							SimilarityReportIo.writeJson(report, cPath);
+						} else {
+							SimilarityReportIo.writeCsv(report, cPath);
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				},
+				null,
+				exc -> {
+					exc.printStackTrace();
+					gui.showAlert(AlertType.ERROR, "Similarity report error", "Error while creating the similarity report", exc.toString());
+				});
+	}
+
 	private final Gui gui;
 }
@@ -0,0 +1,272 @@
+package matcher.gui.menu;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.RadioButton;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import matcher.NameType;
+import matcher.gui.Gui;
+import matcher.gui.GuiConstants;
+import matcher.gui.GuiTaskScheduler.TaskPriority;
+import matcher.gui.IGuiComponent;
+import matcher.srcprocess.BuiltinDecompiler;
+import matcher.srcprocess.SourceIndex;
+import matcher.srcprocess.SourceIndex.Hit;
+import matcher.type.ClassInstance;
+import matcher.type.MatchType;
+import matcher.type.MemberInstance;
+
+/**
+ * Full-text search over the decompiled sources of either side, backed by a {@link SourceIndex} per side.
+ *
+ * The indices get built in the background once the pane is shown and follow name changes while it is showing.
+ */
+class SourceSearchPane extends VBox implements IGuiComponent {
+	SourceSearchPane(Gui gui) {
+		super(GuiConstants.padding);
+
+		this.gui = gui;
+
+		init();
+	}
+
+	private void init() {
+		setPadding(new Insets(GuiConstants.padding));
+
+		HBox hBox = new HBox(GuiConstants.padding);
+		ToggleGroup sideGroup = new ToggleGroup();
+
+		rbA = new RadioButton("A (left)");
+		rbA.setToggleGroup(sideGroup);
+		rbA.setSelected(true);
+		hBox.getChildren().add(rbA);
+
+		RadioButton rbB = new RadioButton("B (right)");
+		rbB.setToggleGroup(sideGroup);
+		hBox.getChildren().add(rbB);
+
+		HBox.setHgrow(queryField, Priority.ALWAYS);
+		queryField.setPromptText("search text");
+		hBox.getChildren().add(queryField);
+
+		getChildren().add(hBox);
+
+		sideGroup.selectedToggleProperty().addListener((observable, oldValue, newValue) -> search());
+		queryField.textProperty().addListener((observable, oldValue, newValue) -> search());
+
+		resultList.setCellFactory(ignore -> new ListCell<Hit>() {
+			@Override
+			protected void updateItem(Hit item, boolean empty) {
+				super.updateItem(item, empty);
+
+				setText(empty || item == null ? null : getHitText(item));
+			}
+		});
+
+		resultList.setOnMouseClicked(event -> {
+			if (event.getClickCount() == 2) jumpTo(resultList.getSelectionModel().getSelectedItem());
+		});
+
+		resultList.setOnKeyPressed(event -> {
+			if (event.getCode() == KeyCode.ENTER) jumpTo(resultList.getSelectionModel().getSelectedItem());
+		});
+
+		VBox.setVgrow(resultList, Priority.ALWAYS);
+		getChildren().add(resultList);
+
+		progressBar.setMaxWidth(Double.MAX_VALUE);
+		progressBar.setVisible(false);
+		getChildren().add(progressBar);
+		getChildren().add(statusLabel);
+	}
+
+	private String getHitText(Hit hit) {
+		NameType nameType = resultIndex.getNameType();
+		StringBuilder ret = new StringBuilder();
+
+		ret.append(hit.cls.getDisplayName(nameType, true));
+
+		if (hit.member != null) {
+			ret.append('.');
+			ret.append(hit.member.getDisplayName(nameType, false));
+		}
+
+		ret.append(':');
+		ret.append(hit.line);
+		ret.append("   ");
+		ret.append(hit.lineText);
+
+		return ret.toString();
+	}
+
+	/**
+	 * Start or resume indexing, to be called whenever the pane gets shown.
+	 */
+	void onShown() {
+		updateIndices();
+		queryField.requestFocus();
+	}
+
+	private boolean isShowing() {
+		return getScene() != null && getScene().getWindow() != null && getScene().getWindow().isShowing();
+	}
+
+	@Override
+	public void onProjectChange() {
+		indexCancelled.set(true);
+		indexA = indexB = null;
+		resultIndex = null;
+		resultList.getItems().clear();
+
+		if (isShowing()) updateIndices();
+	}
+
+	@Override
+	public void onViewChange() {
+		if (isShowing()) updateIndices();
+	}
+
+	@Override
+	public void onMappingChange() {
+		if (isShowing()) updateIndices();
+	}
+
+	@Override
+	public void onMatchChange(Set<MatchType> types) {
+		if (isShowing()) updateIndices();
+	}
+
+	private void updateIndices() {
+		if (gui.getEnv() == null) return;
+
+		BuiltinDecompiler decompiler = gui.getDecompiler();
+		NameType nameType = gui.getNameType();
+
+		// the panes show unmatched A names as tmp names, see MatchPaneSrc/MatchPaneDst
+		if (indexA == null || indexA.getDecompiler() != decompiler || indexA.getNameType() != nameType.withUnmatchedTmp(true)) {
+			indexA = new SourceIndex(gui.getEnv(), true, decompiler, nameType.withUnmatchedTmp(true));
+		}
+
+		if (indexB == null || indexB.getDecompiler() != decompiler || indexB.getNameType() != nameType.withUnmatchedTmp(false)) {
+			indexB = new SourceIndex(gui.getEnv(), false, decompiler, nameType.withUnmatchedTmp(false));
+		}
+
+		SourceIndex cIndexA = indexA;
+		SourceIndex cIndexB = indexB;
+
+		// supersede the previous update, which stops at its next class
+		indexCancelled.set(true);
+		AtomicBoolean cancelled = new AtomicBoolean();
+		indexCancelled = cancelled;
+
+		progressBar.setProgress(0);
+		progressBar.setVisible(true);
+		statusLabel.setText("indexing...");
+
+		// indexing decompiles whole jars, run it on the shared pool instead of tying up the scheduler workers
+		Gui.runBackgroundTask(() -> {
+			int count = cIndexA.update(progress -> Platform.runLater(() -> progressBar.setProgress(progress / 2)), cancelled::get);
+			count += cIndexB.update(progress -> Platform.runLater(() -> progressBar.setProgress(0.5 + progress / 2)), cancelled::get);
+
+			return count;
+		}).whenComplete((res, exc) -> {
+			if (cancelled.get() || exc instanceof CancellationException) {
+				// superseded by a newer update
+			} else {
+				progressBar.setVisible(false);
+
+				if (exc != null) {
+					exc.printStackTrace();
+					statusLabel.setText("indexing failed: "+exc);
+				} else {
+					statusLabel.setText(String.format("indexed %d / %d classes (%d updated)",
+							cIndexA.getDocumentCount(), cIndexB.getDocumentCount(), res));
+					if (res > 0) search();
+				}
+			}
+		});
+	}
+
+	private void search() {
+		SourceIndex index = rbA.isSelected() ? indexA : indexB;
+		String query = queryField.getText();
+
+		if (index == null || query.isEmpty()) {
+			Gui.getTaskScheduler().cancel(searchKey);
+			resultList.getItems().clear();
+			return;
+		}
+
+		long startTime = System.nanoTime();
+
+		Gui.runAsyncTask(searchKey, TaskPriority.INTERACTIVE, () -> index.search(query, maxHits))
+		.whenComplete((res, exc) -> {
+			if (exc instanceof CancellationException) {
+				// superseded by a newer search
+			} else if (exc != null) {
+				exc.printStackTrace();
+			} else {
+				resultIndex = index;
+				resultList.getItems().setAll(res);
+
+				if (!progressBar.isVisible()) {
+					statusLabel.setText(String.format("%s%d hits in %d ms",
+							res.size() >= maxHits ? "first " : "", res.size(), (System.nanoTime() - startTime) / 1_000_000));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Select the class and member of a hit in the source pane, B hits select their A counterpart.
+	 */
+	private void jumpTo(Hit hit) {
+		if (hit == null) return;
+
+		ClassInstance cls = hit.cls;
+		MemberInstance<?> member = hit.member;
+
+		if (!resultIndex.isSideA()) {
+			cls = cls.getMatch();
+			member = member != null ? member.getMatch() : null;
+
+			if (cls == null) {
+				statusLabel.setText(hit.cls.getDisplayName(resultIndex.getNameType(), true)+" is unmatched, can't select it");
+				return;
+			}
+		}
+
+		gui.getSrcPane().selectClass(cls);
+		if (member != null) gui.getSrcPane().selectMember(member);
+	}
+
+	private static final int maxHits = 1000;
+
+	private final Object searchKey = new Object();
+
+	private final Gui gui;
+	private RadioButton rbA;
+	private final TextField queryField = new TextField();
+	private final ListView<Hit> resultList = new ListView<>();
+	private final ProgressBar progressBar = new ProgressBar();
+	private final Label statusLabel = new Label();
+
+	private SourceIndex indexA;
+	private SourceIndex indexB;
+	private SourceIndex resultIndex;
+	private AtomicBoolean indexCancelled = new AtomicBoolean();
+}
@@ -1,11 +1,15 @@
 package matcher.gui.menu;
 
+import javafx.scene.Scene;
 import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Menu;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.RadioMenuItem;
 import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.Toggle;
 import javafx.scene.control.ToggleGroup;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
 
 import matcher.NameType;
 import matcher.gui.Gui;
@@ -111,6 +115,31 @@ public class ViewMenu extends Menu implements IGuiComponent {
 		});
 
 		getItems().add(menu);
+
+		getItems().add(new SeparatorMenuItem());
+
+		MenuItem menuItem = new MenuItem("Search sources");
+		getItems().add(menuItem);
+		menuItem.setOnAction(event -> showSourceSearch());
+	}
+
+	private void showSourceSearch() {
+		if (sourceSearchStage == null) {
+			SourceSearchPane pane = new SourceSearchPane(gui);
+			gui.addListeningComponent(pane);
+
+			Scene scene = new Scene(pane, 900, 500);
+			scene.getStylesheets().addAll(gui.getScene().getStylesheets());
+
+			sourceSearchStage = new Stage(StageStyle.UTILITY);
+			sourceSearchStage.initOwner(gui.getScene().getWindow());
+			sourceSearchStage.setTitle("Source search");
+			sourceSearchStage.setScene(scene);
+			sourceSearchStage.setOnShown(event -> pane.onShown());
+		}
+
+		sourceSearchStage.show();
+		sourceSearchStage.toFront();
 	}
 
 	@Override
@@ -156,4 +185,5 @@ public class ViewMenu extends Menu implements IGuiComponent {
 	private CheckMenuItem useDiffColorsItem;
 	private CheckMenuItem mapCodeViewsItem;
 	private ToggleGroup decompilerToggleGroup;
+	private Stage sourceSearchStage;
 }
@@ -2,11 +2,13 @@ package matcher.gui.tab;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.concurrent.CancellationException;
 
 import org.objectweb.asm.util.TraceClassVisitor;
 
 import matcher.NameType;
 import matcher.gui.Gui;
+import matcher.gui.GuiTaskScheduler.TaskPriority;
 import matcher.gui.ISelectionProvider;
 import matcher.srcprocess.HtmlUtil;
 import matcher.type.ClassInstance;
@@ -40,16 +42,21 @@ public class BytecodeTab extends WebViewTab {
 		if (cls == null) {
 			displayText("no class selected");
 		} else {
-			StringWriter writer = new StringWriter();
-
-			try (PrintWriter pw = new PrintWriter(writer)) {
-				NameType nameType = gui.getNameType().withUnmatchedTmp(unmatchedTmp);
-				cls.accept(new TraceClassVisitor(null, new HtmlTextifier(cls, nameType), pw), nameType);
+			NameType nameType = gui.getNameType().withUnmatchedTmp(unmatchedTmp);
+			String html;
+
+			try {
+				html = getHtml(gui, cls, nameType);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
 			}
 
+			if (isRefresh && html == displayedHtml) return; // a refresh without relevant changes keeps the current page
+
 			double prevScroll = isRefresh ? getScrollTop() : 0;
 
-			displayHtml(writer.toString());
+			displayHtml(html);
 
 			if (isRefresh && prevScroll > 0) {
 				setScrollTop(prevScroll);
@@ -57,6 +64,46 @@ public class BytecodeTab extends WebViewTab {
 		}
 	}
 
+	private static String getHtml(Gui gui, ClassInstance cls, NameType nameType) throws InterruptedException {
+		long version = cls.getSourceVersion(nameType);
+
+		return gui.getBytecodeCache().getOrCompute(cls, nameType, null, version, () -> {
+			StringWriter writer = new StringWriter();
+
+			try (PrintWriter pw = new PrintWriter(writer)) {
+				cls.accept(new TraceClassVisitor(null, new HtmlTextifier(cls, nameType), pw), nameType);
+			}
+
+			return writer.toString();
+		});
+	}
+
+	/**
+	 * Render the bytecode of the class about to be shown by the destination pane into the bytecode cache,
+	 * superseding the previous prefetch.
+	 */
+	public static void prefetch(Gui gui, ClassInstance dstCls) {
+		NameType nameType = gui.getNameType().withUnmatchedTmp(false);
+
+		Gui.runAsyncTask(prefetchKey, TaskPriority.BACKGROUND, () -> {
+			try {
+				getHtml(gui, dstCls, nameType);
+			} catch (CancellationException e) {
+				throw e;
+			} catch (RuntimeException e) {
+				// reported once the class gets displayed
+			}
+
+			return null;
+		});
+	}
+
+	@Override
+	protected void displayHtml(String html) {
+		super.displayHtml(html);
+		displayedHtml = html;
+	}
+
 	@Override
 	public void onMethodSelect(MethodInstance method) {
 		if (method != null) select(HtmlUtil.getId(method));
@@ -67,7 +114,11 @@ public class BytecodeTab extends WebViewTab {
 		if (field != null) select(HtmlUtil.getId(field));
 	}
 
+	private static final Object prefetchKey = new Object();
+
 	private final Gui gui;
 	private final ISelectionProvider selectionProvider;
 	private final boolean unmatchedTmp;
+
+	private String displayedHtml;
 }
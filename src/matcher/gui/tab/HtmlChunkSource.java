@@ -0,0 +1,76 @@
+package matcher.gui.tab;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Html document split into chunks for incremental loading into a web view.
+ *
+ * The chunks after the first are handed out to the page's script through {@link #next()} as it appends them.
+ */
+public final class HtmlChunkSource {
+	HtmlChunkSource(String html) {
+		this.chunks = split(html);
+	}
+
+	/**
+	 * Split html into chunks at line ends outside of any element, all chunks are thus well-formed on their own.
+	 *
+	 * Elements spanning more than the chunk size, e.g. huge methods, stay in a single chunk.
+	 */
+	private static List<String> split(String html) {
+		if (html.length() <= chunkSize * 2) return List.of(html);
+
+		List<String> ret = new ArrayList<>(html.length() / chunkSize + 1);
+		int depth = 0;
+		int start = 0;
+
+		for (int i = 0, max = html.length(); i < max; i++) {
+			char c = html.charAt(i);
+
+			if (c == '<') {
+				if (i + 1 < max && html.charAt(i + 1) == '/') {
+					if (depth > 0) depth--;
+				} else {
+					depth++;
+				}
+			} else if (c == '\n' && depth == 0 && i + 1 - start >= chunkSize) {
+				ret.add(html.substring(start, i + 1));
+				start = i + 1;
+			}
+		}
+
+		if (start < html.length()) ret.add(html.substring(start));
+
+		return ret;
+	}
+
+	String getFirst() {
+		return chunks.get(0);
+	}
+
+	/**
+	 * Get the next chunk to append, null if all chunks were handed out already.
+	 */
+	public String next() {
+		if (nextChunk >= chunks.size()) return null;
+
+		return chunks.get(nextChunk++);
+	}
+
+	/**
+	 * Get the number of chunks to append until the page contains the supplied text, 0 if already loaded or absent.
+	 */
+	int getChunksUntil(String text) {
+		for (int i = nextChunk; i < chunks.size(); i++) {
+			if (chunks.get(i).contains(text)) return i - nextChunk + 1;
+		}
+
+		return 0;
+	}
+
+	private static final int chunkSize = 64 * 1024;
+
+	private final List<String> chunks;
+	private int nextChunk = 1;
+}
@@ -2,11 +2,15 @@ package matcher.gui.tab;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 
 import matcher.NameType;
 import matcher.gui.Gui;
+import matcher.gui.GuiTaskScheduler.TaskPriority;
 import matcher.gui.ISelectionProvider;
+import matcher.srcprocess.BuiltinDecompiler;
 import matcher.srcprocess.HtmlUtil;
 import matcher.srcprocess.SrcDecorator;
 import matcher.srcprocess.SrcDecorator.SrcParseException;
@@ -63,17 +67,31 @@ public class SourcecodeTab extends WebViewTab {
 			return;
 		}
 
+		NameType nameType = gui.getNameType().withUnmatchedTmp(unmatchedTmp);
+		BuiltinDecompiler decompiler = gui.getDecompiler();
+		long version = cls.getSourceVersion(nameType);
+		String cached = gui.getSourceCache().get(cls, nameType, decompiler, version);
+
+		if (cached != null) {
+			Gui.getTaskScheduler().cancel(this);
+
+			if (!isRefresh || cached != displayedHtml) { // a refresh without relevant changes keeps the current page
+				display(cached, isRefresh);
+			}
+
+			return;
+		}
+
 		if (!isRefresh) {
 			displayText("decompiling...");
 		}
 
-		NameType nameType = gui.getNameType().withUnmatchedTmp(unmatchedTmp);
-
 		//Gui.runAsyncTask(() -> gui.getEnv().decompile(cls, true))
-		Gui.runAsyncTask(() -> SrcDecorator.decorate(gui.getEnv().decompile(gui.getDecompiler().get(), cls, nameType),
-				cls, nameType))
+		Gui.runAsyncTask(this, isRefresh ? TaskPriority.NORMAL : TaskPriority.INTERACTIVE, () -> getSource(gui, cls, nameType, decompiler, version))
 		.whenComplete((res, exc) -> {
-			if (cDecompId == decompId) {
+			if (exc instanceof CancellationException) {
+				// superseded by a newer update
+			} else if (cDecompId == decompId) {
 				if (exc != null) {
 					exc.printStackTrace();
 
@@ -87,13 +105,7 @@ public class SourcecodeTab extends WebViewTab {
 						displayText("decompile error: "+sw.toString());
 					}
 				} else {
-					double prevScroll = isRefresh ? getScrollTop() : 0;
-
-					displayHtml(res);
-
-					if (isRefresh && prevScroll > 0) {
-						setScrollTop(prevScroll);
-					}
+					display(res, isRefresh);
 				}
 			} else if (exc != null) {
 				exc.printStackTrace();
@@ -101,6 +113,69 @@ public class SourcecodeTab extends WebViewTab {
 		});
 	}
 
+	private static String getSource(Gui gui, ClassInstance cls, NameType nameType, BuiltinDecompiler decompiler, long version) throws InterruptedException {
+		return gui.getSourceCache().getOrCompute(cls, nameType, decompiler, version, () -> {
+			String html = gui.getEnv().decompileHtml(decompiler.get(), cls, nameType);
+			if (Thread.interrupted()) throw new CancellationException();
+			if (html != null) return html;
+
+			String src = gui.getEnv().decompile(decompiler.get(), cls, nameType);
+			if (Thread.interrupted()) throw new CancellationException();
+
+			return SrcDecorator.decorate(src, cls, nameType);
+		});
+	}
+
+	/**
+	 * Decompile the sources the user is likely to view next into the source cache, superseding the previous prefetch.
+	 *
+	 * @param dstCls class about to be shown by the destination pane or null
+	 * @param srcClasses classes likely to be shown next by the source pane, most likely first
+	 */
+	public static void prefetch(Gui gui, ClassInstance dstCls, List<ClassInstance> srcClasses) {
+		BuiltinDecompiler decompiler = gui.getDecompiler();
+		NameType srcNameType = gui.getNameType().withUnmatchedTmp(true);
+		NameType dstNameType = gui.getNameType().withUnmatchedTmp(false);
+
+		Gui.runAsyncTask(prefetchKey, TaskPriority.BACKGROUND, () -> {
+			if (dstCls != null) prefetch(gui, dstCls, dstNameType, decompiler);
+
+			for (ClassInstance cls : srcClasses) {
+				prefetch(gui, cls, srcNameType, decompiler);
+			}
+
+			return null;
+		});
+	}
+
+	private static void prefetch(Gui gui, ClassInstance cls, NameType nameType, BuiltinDecompiler decompiler) throws InterruptedException {
+		if (Thread.interrupted()) throw new CancellationException();
+
+		try {
+			getSource(gui, cls, nameType, decompiler, cls.getSourceVersion(nameType));
+		} catch (CancellationException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			// reported once the class gets displayed
+		}
+	}
+
+	private void display(String html, boolean isRefresh) {
+		double prevScroll = isRefresh ? getScrollTop() : 0;
+
+		displayHtml(html);
+
+		if (isRefresh && prevScroll > 0) {
+			setScrollTop(prevScroll);
+		}
+	}
+
+	@Override
+	protected void displayHtml(String html) {
+		super.displayHtml(html);
+		displayedHtml = html;
+	}
+
 	@Override
 	public void onMethodSelect(MethodInstance method) {
 		if (method != null) select(HtmlUtil.getId(method));
@@ -111,9 +186,12 @@ public class SourcecodeTab extends WebViewTab {
 		if (field != null) select(HtmlUtil.getId(field));
 	}
 
+	private static final Object prefetchKey = new Object();
+
 	private final Gui gui;
 	private final ISelectionProvider selectionProvider;
 	private final boolean unmatchedTmp;
 
 	private int decompId;
+	private String displayedHtml;
 }
@@ -13,7 +13,10 @@ import java.util.Queue;
 
 import javafx.concurrent.Worker.State;
 import javafx.scene.control.Tab;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.web.WebView;
+import netscape.javascript.JSObject;
 
 import matcher.gui.IGuiComponent;
 import matcher.srcprocess.HtmlUtil;
@@ -26,6 +29,8 @@ abstract class WebViewTab extends Tab implements IGuiComponent {
 
 		webView.getEngine().getLoadWorker().stateProperty().addListener((observable, oldValue, newValue) -> {
 			if (newValue == State.SUCCEEDED) {
+				installChunkLoader();
+
 				Runnable r;
 
 				while ((r = pendingWebViewTasks.poll()) != null) {
@@ -34,6 +39,12 @@ abstract class WebViewTab extends Tab implements IGuiComponent {
 			}
 		});
 
+		webView.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+			if (event.isShortcutDown() && event.getCode() == KeyCode.A) { // select all has to cover the whole document
+				addWebViewTask(() -> webView.getEngine().executeScript("while (matcherLoadChunk()) {}"));
+			}
+		});
+
 		setContent(webView);
 	}
 
@@ -41,14 +52,40 @@ abstract class WebViewTab extends Tab implements IGuiComponent {
 		displayHtml(HtmlUtil.escape(text));
 	}
 
+	/**
+	 * Display html, loading large documents in chunks.
+	 *
+	 * Only the first chunk is part of the initial page, the others get appended as the user scrolls towards them or
+	 * selects an anchor inside them. This keeps giant classes from blocking the UI thread with a huge WebKit layout.
+	 */
 	protected void displayHtml(String html) {
-		html = template.replace("%text%", html);
+		chunkSource = new HtmlChunkSource(html);
+
+		html = template.replace("%text%", chunkSource.getFirst());
 		//System.out.println(html);
 		webView.getEngine().loadContent(html);
 	}
 
+	private void installChunkLoader() {
+		JSObject window = (JSObject) webView.getEngine().executeScript("window");
+		window.setMember("matcherChunks", chunkSource);
+		webView.getEngine().executeScript("window.matcherLoadChunk = function() {"
+				+ "var html = matcherChunks.next();"
+				+ "if (html === null || html === undefined) return false;"
+				+ "document.body.insertAdjacentHTML('beforeend', html);"
+				+ "return true;"
+				+ "};"
+				+ "window.matcherFillView = function() {"
+				+ "while (document.body.scrollTop + 2 * window.innerHeight > document.body.scrollHeight && matcherLoadChunk()) {}"
+				+ "};"
+				+ "window.addEventListener('scroll', matcherFillView);"
+				+ "window.addEventListener('resize', matcherFillView);"
+				+ "matcherFillView();");
+	}
+
 	protected void select(String anchorId) {
-		addWebViewTask(() -> webView.getEngine().executeScript("var newAnchor = document.getElementById('"+anchorId+"');"
+		addWebViewTask(() -> webView.getEngine().executeScript("for (var i = 0; i < "+chunkSource.getChunksUntil("id=\""+anchorId+"\"")+" && matcherLoadChunk(); i++) {}"
+				+ "var newAnchor = document.getElementById('"+anchorId+"');"
 				+ "if (newAnchor !== null) document.body.scrollTop = newAnchor.getBoundingClientRect().top + window.scrollY;"
 				+ "if (window.hasOwnProperty('anchorElem') && window.anchorElem !== null) window.anchorElem.classList.remove('selected');"
 				+ "if (newAnchor !== null) newAnchor.classList.add('selected');"
@@ -67,7 +104,8 @@ abstract class WebViewTab extends Tab implements IGuiComponent {
 	}
 
 	protected void setScrollTop(double value) {
-		addWebViewTask(() -> webView.getEngine().executeScript("document.body.scrollTop = "+value));
+		addWebViewTask(() -> webView.getEngine().executeScript("while (document.body.scrollHeight < "+value+" + window.innerHeight && matcherLoadChunk()) {}"
+				+ "document.body.scrollTop = "+value));
 	}
 
 	private void addWebViewTask(Runnable r) {
@@ -107,4 +145,5 @@ abstract class WebViewTab extends Tab implements IGuiComponent {
 	private final String template;
 	private final WebView webView = new WebView();
 	private final Queue<Runnable> pendingWebViewTasks = new ArrayDeque<>();
+	private HtmlChunkSource chunkSource; // strong reference, the page only holds the bridge object weakly
 }
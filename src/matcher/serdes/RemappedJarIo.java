@@ -0,0 +1,206 @@
+package matcher.serdes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassWriter;
+
+import matcher.Matcher;
+import matcher.NameType;
+import matcher.bcremap.AsmRemapper;
+import matcher.type.ClassEnvironment;
+import matcher.type.ClassFeatureExtractor;
+import matcher.type.ClassInstance;
+
+/**
+ * Writes the input classes of one side as a jar remapped to a name type.
+ *
+ * The classes get remapped in parallel with a remapper per worker thread, a single writer stores the results in
+ * name order. Classes failing to remap are left out and reported in the result.
+ */
+public final class RemappedJarIo {
+	public static Result write(ClassEnvironment env, boolean sideA, NameType nameType, boolean compress, Path file,
+			DoubleConsumer progressReceiver, BooleanSupplier cancelled) throws IOException {
+		ClassFeatureExtractor extractor = (ClassFeatureExtractor) (sideA ? env.getEnvA() : env.getEnvB());
+		List<ClassInstance> classes = new ArrayList<>();
+
+		for (ClassInstance cls : extractor.getClasses()) {
+			if (cls.isInput() && cls.isReal() && cls.getAsmNodes() != null) classes.add(cls);
+		}
+
+		List<OutputClass> outputClasses = new ArrayList<>(classes.size());
+
+		for (ClassInstance cls : classes) {
+			outputClasses.add(new OutputClass(cls, cls.getName(nameType)));
+		}
+
+		outputClasses.sort(Comparator.comparing(c -> c.name));
+
+		List<Failure> failures = new ArrayList<>();
+		int total = outputClasses.size();
+		removeDuplicates(outputClasses, failures);
+
+		Map<String, ClassInstance> classLookup = AsmRemapper.createClassLookup(extractor.getClasses());
+		ThreadLocal<AsmRemapper> remappers = ThreadLocal.withInitial(() -> new AsmRemapper(extractor, nameType, classLookup));
+		int maxQueued = Runtime.getRuntime().availableProcessors() * 4;
+		Queue<Future<RemappedClass>> queue = new ArrayDeque<>(maxQueued);
+		int written = 0;
+		int next = 0;
+		boolean completed = false;
+
+		try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(file))) {
+			while (next < outputClasses.size() || !queue.isEmpty()) {
+				if (cancelled.getAsBoolean()) throw new CancellationException();
+
+				// keep the workers busy while bounding the memory held by pending results
+				while (next < outputClasses.size() && queue.size() < maxQueued) {
+					OutputClass outputClass = outputClasses.get(next++);
+
+					queue.add(Matcher.threadPool.submit(() -> remap(outputClass, remappers.get(), compress)));
+				}
+
+				RemappedClass res;
+
+				try {
+					res = queue.poll().get();
+				} catch (InterruptedException e) {
+					throw new CancellationException();
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+
+				if (res.failure != null) {
+					failures.add(new Failure(res.name, res.failure));
+				} else {
+					ZipEntry entry = new ZipEntry(res.name.concat(".class"));
+
+					if (!compress) {
+						entry.setMethod(ZipEntry.STORED);
+						entry.setSize(res.data.length);
+						entry.setCompressedSize(res.data.length);
+						entry.setCrc(res.crc);
+					}
+
+					zos.putNextEntry(entry);
+					zos.write(res.data);
+					zos.closeEntry();
+					written++;
+				}
+
+				progressReceiver.accept((double) (written + failures.size()) / total);
+			}
+
+			completed = true;
+		} finally {
+			for (Future<?> future : queue) {
+				future.cancel(false);
+			}
+
+			if (!completed) Files.deleteIfExists(file); // don't leave a truncated jar behind
+		}
+
+		return new Result(written, Collections.unmodifiableList(failures));
+	}
+
+	/**
+	 * Drop classes mapping to the same name as their predecessor in the sorted list and report them as failures.
+	 *
+	 * A jar can't hold duplicate entries, colliding or partial mappings would otherwise abort the whole export.
+	 */
+	private static void removeDuplicates(List<OutputClass> outputClasses, List<Failure> failures) {
+		int out = 0;
+
+		for (int i = 0; i < outputClasses.size(); i++) {
+			OutputClass outputClass = outputClasses.get(i);
+			OutputClass prev = out > 0 ? outputClasses.get(out - 1) : null;
+
+			if (prev != null && prev.name.equals(outputClass.name)) {
+				failures.add(new Failure(outputClass.name, new ZipException("duplicate entry "+outputClass.name+".class: "+outputClass.cls+" maps to the same name as "+prev.cls)));
+			} else {
+				outputClasses.set(out++, outputClass);
+			}
+		}
+
+		outputClasses.subList(out, outputClasses.size()).clear();
+	}
+
+	private static RemappedClass remap(OutputClass outputClass, AsmRemapper remapper, boolean compress) {
+		try {
+			ClassWriter writer = new ClassWriter(0);
+			outputClass.cls.accept(writer, remapper);
+			byte[] data = writer.toByteArray();
+			long crc = 0;
+
+			if (!compress) { // stored entries need the crc upfront
+				CRC32 crc32 = new CRC32();
+				crc32.update(data);
+				crc = crc32.getValue();
+			}
+
+			return new RemappedClass(outputClass.name, data, crc, null);
+		} catch (Throwable t) {
+			return new RemappedClass(outputClass.name, null, 0, t);
+		}
+	}
+
+	public static final class Result {
+		Result(int writtenCount, List<Failure> failures) {
+			this.writtenCount = writtenCount;
+			this.failures = failures;
+		}
+
+		public final int writtenCount;
+		public final List<Failure> failures;
+	}
+
+	public static final class Failure {
+		Failure(String name, Throwable cause) {
+			this.name = name;
+			this.cause = cause;
+		}
+
+		public final String name;
+		public final Throwable cause;
+	}
+
+	private static final class OutputClass {
+		OutputClass(ClassInstance cls, String name) {
+			this.cls = cls;
+			this.name = name;
+		}
+
+		final ClassInstance cls;
+		final String name;
+	}
+
+	private static final class RemappedClass {
+		RemappedClass(String name, byte[] data, long crc, Throwable failure) {
+			this.name = name;
+			this.data = data;
+			this.crc = crc;
+			this.failure = failure;
+		}
+
+		final String name;
+		final byte[] data;
+		final long crc;
+		final Throwable failure;
+	}
+}
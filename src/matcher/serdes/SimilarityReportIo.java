@@ -0,0 +1,86 @@
+package matcher.serdes;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import matcher.SimilarityReport;
+import matcher.SimilarityReport.Entry;
+
+public final class SimilarityReportIo {
+	public static void writeCsv(SimilarityReport report, Path path) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(path)) {
+			writer.write("kind,a,b,similarity\n");
+
+			for (Entry entry : report.getEntries()) {
+				writer.write(entry.kind.name().toLowerCase(Locale.ENGLISH));
+				writer.write(',');
+				writeCsvString(entry.nameA, writer);
+				writer.write(',');
+				writeCsvString(entry.nameB, writer);
+				writer.write(',');
+				writer.write(formatSimilarity(entry.similarity));
+				writer.write('\n');
+			}
+		}
+	}
+
+	private static void writeCsvString(String str, Writer writer) throws IOException {
+		// method display names contain commas, always quote
+		writer.write('"');
+		writer.write(str.replace("\"", "\"\""));
+		writer.write('"');
+	}
+
+	public static void writeJson(SimilarityReport report, Path path) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(path)) {
+			writer.write("[");
+			boolean first = true;
+
+			for (Entry entry : report.getEntries()) {
+				if (first) {
+					first = false;
+				} else {
+					writer.write(',');
+				}
+
+				writer.write("\n\t{\"kind\": \"");
+				writer.write(entry.kind.name().toLowerCase(Locale.ENGLISH));
+				writer.write("\", \"a\": ");
+				writeJsonString(entry.nameA, writer);
+				writer.write(", \"b\": ");
+				writeJsonString(entry.nameB, writer);
+				writer.write(", \"similarity\": ");
+				writer.write(formatSimilarity(entry.similarity));
+				writer.write('}');
+			}
+
+			writer.write("\n]\n");
+		}
+	}
+
+	private static void writeJsonString(String str, Writer writer) throws IOException {
+		writer.write('"');
+
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				writer.write('\\');
+				writer.write(c);
+			} else if (c < 0x20) {
+				writer.write(String.format("\\u%04x", (int) c));
+			} else {
+				writer.write(c);
+			}
+		}
+
+		writer.write('"');
+	}
+
+	private static String formatSimilarity(float similarity) {
+		return String.format(Locale.ENGLISH, "%.6f", similarity);
+	}
+}
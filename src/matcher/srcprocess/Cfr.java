@@ -11,6 +11,7 @@ import java.util.Map;
 import org.benf.cfr.reader.api.CfrDriver;
 import org.benf.cfr.reader.api.ClassFileSource;
 import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 
 import matcher.NameType;
@@ -20,9 +21,31 @@ import matcher.type.ClassInstance;
 public class Cfr implements Decompiler {
 	@Override
 	public synchronized String decompile(ClassInstance cls, ClassFeatureExtractor env, NameType nameType) {
-		Map<String, String> options = new HashMap<>();
-
 		Sink sink = new Sink();
+		analyse(cls, env, nameType, sink);
+
+		return sink.toString();
+	}
+
+	@Override
+	public String decompileHtml(ClassInstance cls, ClassFeatureExtractor env, NameType nameType) {
+		CfrHtmlPrinter printer = new CfrHtmlPrinter(cls, nameType);
+		String ret;
+
+		synchronized (this) {
+			Sink sink = new Sink();
+			sink.htmlPrinter = printer;
+			analyse(cls, env, nameType, sink);
+
+			ret = printer.getSource();
+		}
+
+		// fall back to reparsing if the token stream wasn't understood
+		return ret != null ? ret : SrcDecorator.decorate(decompile(cls, env, nameType), cls, nameType);
+	}
+
+	private static void analyse(ClassInstance cls, ClassFeatureExtractor env, NameType nameType, Sink sink) {
+		Map<String, String> options = new HashMap<>();
 
 		CfrDriver driver = new CfrDriver.Builder()
 				.withOptions(options)
@@ -31,8 +54,7 @@ public class Cfr implements Decompiler {
 				.build();
 
 		driver.analyse(Collections.singletonList(cls.getName(nameType).concat(fileSuffix)));
-
-		return sink.toString();
+		Decompiler.checkInterrupted(); // cfr may swallow the interruption in its class loading callbacks
 	}
 
 	private static class Source implements ClassFileSource {
@@ -60,6 +82,8 @@ public class Cfr implements Decompiler {
 
 		@Override
 		public Pair<byte[], String> getClassFileContent(String path) throws IOException {
+			Decompiler.checkInterrupted();
+
 			if (!path.endsWith(fileSuffix)) {
 				System.out.printf("getClassFileContent invalid path: %s%n", path);
 				throw new NoSuchFileException(path);
@@ -90,6 +114,10 @@ public class Cfr implements Decompiler {
 	private static class Sink implements OutputSinkFactory {
 		@Override
 		public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+			if (sinkType == SinkType.JAVA && htmlPrinter != null && available.contains(SinkClass.TOKEN_STREAM)) {
+				return Collections.singletonList(SinkClass.TOKEN_STREAM);
+			}
+
 			return Collections.singletonList(SinkClass.STRING);
 		}
 
@@ -99,6 +127,12 @@ public class Cfr implements Decompiler {
 			case EXCEPTION:
 				return str -> System.out.println("e "+str);
 			case JAVA:
+				if (sinkClass == SinkClass.TOKEN_STREAM) {
+					CfrHtmlPrinter printer = htmlPrinter;
+
+					return token -> printer.accept((SinkReturns.Token) token);
+				}
+
 				return sb::append;
 			case PROGRESS:
 				return str -> System.out.println("p "+str);
@@ -116,6 +150,7 @@ public class Cfr implements Decompiler {
 		}
 
 		private final StringBuilder sb = new StringBuilder();
+		CfrHtmlPrinter htmlPrinter; // tokens get passed to the printer instead of collecting text while set
 	}
 
 	private static final String fileSuffix = ".class";
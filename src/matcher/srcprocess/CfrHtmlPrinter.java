@@ -0,0 +1,563 @@
+package matcher.srcprocess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.benf.cfr.reader.api.SinkReturns.Token;
+import org.benf.cfr.reader.api.SinkReturns.TokenTypeFlags;
+
+import matcher.NameType;
+import matcher.type.ClassInstance;
+import matcher.type.FieldInstance;
+import matcher.type.MemberInstance;
+import matcher.type.MethodInstance;
+import matcher.type.MethodVarInstance;
+
+/**
+ * Html printer for cfr's token stream, producing the markup of {@link SrcDecorator} on cfr's own layout without reparsing.
+ *
+ * Cfr doesn't expose the descriptors of the declared members, they get resolved by name and parameter type names.
+ * Members that can't be resolved unambiguously are printed without anchor and comment.
+ */
+final class CfrHtmlPrinter {
+	CfrHtmlPrinter(ClassInstance cls, NameType nameType) {
+		this.cls = cls;
+		this.nameType = nameType;
+	}
+
+	void accept(Token token) {
+		if (failed) return;
+
+		String text = token.getText();
+
+		switch (token.getTokenType()) {
+		case NEWLINE:
+			if (lineStarted) {
+				endLine();
+			} else if (!lastLineBlank && out.length() > 0) { // collapse consecutive empty lines like cfr's text output
+				if (inBlockComment) printSpan("comment", " *");
+				endLine();
+				lastLineBlank = true;
+			}
+
+			break;
+		case INDENT:
+			indent++;
+			break;
+		case UNINDENT:
+			if (--indent < 0) failed = true;
+			break;
+		case EXPLICIT_INDENT:
+			startLine();
+			out.append('\t');
+			break;
+		case EOF:
+			break;
+		case WHITESPACE:
+			if (lineStarted) out.append(text);
+			break;
+		case COMMENT:
+			if (inBlockComment && !lineStarted && !text.startsWith(" */")) {
+				printSpan("comment", " * ".concat(text));
+			} else {
+				printSpan("comment", text);
+			}
+
+			if (text.startsWith("/*")) inBlockComment = true;
+			if (text.endsWith("*/")) inBlockComment = false;
+			break;
+		case LITERAL:
+			if (text.startsWith("\"") || text.startsWith("'")) {
+				printSpan("string", text);
+			} else {
+				printCode(text, false);
+			}
+
+			break;
+		case FIELD:
+			if (isDefinition(token)) {
+				startLine();
+				onFieldDefinition(text);
+				printSpan("field", text);
+			} else {
+				printCode(text, true);
+			}
+
+			break;
+		case METHOD:
+			if (isDefinition(token)) {
+				startLine();
+				onMethodDefinition(text);
+			}
+
+			printCode(text, true);
+			break;
+		case IDENTIFIER:
+			if (isDefinition(token)) {
+				if (methodName != null && parenDepth == methodParenDepth + 1) { // method parameter
+					paramTypes.add(getTypeName(typeText));
+					typeText.setLength(0);
+				}
+
+				printSpan("variable", text);
+			} else {
+				printCode(text, false);
+			}
+
+			break;
+		case KEYWORD:
+			printCode(text, false);
+			break;
+		default:
+			if (methodName != null) typeText.append(text);
+			lineText.append(text);
+			printCode(text, false);
+		}
+	}
+
+	/**
+	 * Get the html for the consumed tokens or null if the token stream wasn't understood.
+	 */
+	String getSource() {
+		if (failed || !blocks.isEmpty() || out.length() == 0) return null;
+
+		if (lineStarted) endLine();
+
+		return out.toString();
+	}
+
+	private static boolean isDefinition(Token token) {
+		Set<TokenTypeFlags> flags = token.getFlags();
+
+		return flags != null && flags.contains(TokenTypeFlags.DEFINES);
+	}
+
+	private void startLine() {
+		if (lineStarted) return;
+
+		lineStarted = true;
+
+		for (int i = 0; i < indent; i++) {
+			out.append('\t');
+		}
+
+		lineContentStart = out.length();
+	}
+
+	private void endLine() {
+		if (!lineIsAnnotation) annotationStart = -1;
+
+		out.append('\n');
+		lastLineBlank = false;
+		lineStarted = false;
+		lineIsAnnotation = false;
+		lineHasMember = false;
+		lineText.setLength(0);
+	}
+
+	private void printSpan(String cssClass, String text) {
+		startLine();
+
+		out.append("<span class=\"");
+		out.append(cssClass);
+		out.append("\">");
+		out.append(HtmlUtil.escape(text));
+		out.append("</span>");
+	}
+
+	/**
+	 * Print code text, highlighting keywords and annotations while tracking the block structure.
+	 */
+	private void printCode(String text, boolean isName) {
+		if (text.isEmpty()) return;
+
+		if (!lineStarted) {
+			String trimmed = text.trim();
+			if (trimmed.isEmpty()) return; // skip leading whitespace, cfr relies on indentation
+
+			startLine();
+
+			if (trimmed.startsWith("@") && getClassContext() != null && member == null) {
+				lineIsAnnotation = true;
+				if (annotationStart < 0) annotationStart = lineContentStart;
+			}
+
+			text = text.substring(text.indexOf(trimmed.charAt(0)));
+		}
+
+		int start = 0;
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (Character.isJavaIdentifierStart(c)) {
+				printText(text, start, i);
+
+				int end = i + 1;
+				while (end < text.length() && Character.isJavaIdentifierPart(text.charAt(end))) end++;
+
+				printWord(text.substring(i, end), isName, i > 0 && text.charAt(i - 1) == '.');
+				start = end;
+				i = end - 1;
+			} else if (c == '{' || c == '}' || c == '(' || c == ')' || c == ';' || c == ',' || c == '@') {
+				printText(text, start, i);
+				onStructure(c);
+				start = i + 1;
+			}
+		}
+
+		printText(text, start, text.length());
+	}
+
+	private void printText(String text, int start, int end) {
+		if (start < end) out.append(HtmlUtil.escape(text.substring(start, end)));
+	}
+
+	private void printWord(String word, boolean isName, boolean isQualified) {
+		if (inAnnotation) {
+			out.append(word);
+			out.append("</span>");
+			inAnnotation = false;
+
+			if (word.equals("interface") && parenDepth == 0 && member == null) { // @interface declaration
+				expectClassName = true;
+			}
+		} else if (!isName && keywords.contains(word)) {
+			out.append("<span class=\"keyword\">");
+			out.append(word);
+			out.append("</span>");
+
+			if (!isQualified && classKeywords.contains(word) && parenDepth == 0 && member == null
+					&& (blocks.isEmpty() || getClassContext() != null)) {
+				expectClassName = true;
+			}
+		} else {
+			out.append(word);
+
+			if (expectClassName) {
+				expectClassName = false;
+				onClassDefinition(word);
+			}
+		}
+	}
+
+	private void onStructure(char c) {
+		if (c != '@') expectClassName = false;
+
+		switch (c) {
+		case '@':
+			out.append("<span class=\"annotation\">@");
+			inAnnotation = true;
+			return;
+		case '(':
+			parenDepth++;
+			break;
+		case ')':
+			parenDepth--;
+
+			if (methodName != null && parenDepth == methodParenDepth) {
+				out.append(c);
+				onMethodParamsEnd();
+				return;
+			}
+
+			break;
+		case '{':
+			out.append(c);
+			blocks.add(pendingClass); // null for blocks other than class bodies
+			pendingClass = null;
+			return;
+		case '}':
+			if (blocks.isEmpty()) {
+				failed = true;
+				return;
+			}
+
+			blocks.remove(blocks.size() - 1);
+			out.append(c);
+
+			if (member != null && blocks.size() == memberDepth && (!memberIsField || memberIsEnumConstant)) {
+				closeMember();
+			}
+
+			return;
+		case ';':
+			out.append(c);
+			pendingClass = null;
+
+			if (member != null && blocks.size() == memberDepth && parenDepth == 0) {
+				closeMember();
+			}
+
+			return;
+		case ',':
+			if (member != null && memberIsEnumConstant && blocks.size() == memberDepth && parenDepth == 0) {
+				closeMember();
+			}
+
+			break;
+		}
+
+		out.append(c);
+	}
+
+	private void onClassDefinition(String name) {
+		ClassInstance context = getClassContext();
+		ClassInstance defCls;
+
+		if (blocks.isEmpty()) {
+			defCls = cls;
+		} else if (context != null) {
+			defCls = null;
+
+			for (ClassInstance innerCls : context.getInnerClasses()) {
+				if (getSimpleName(innerCls).equals(name)) {
+					defCls = innerCls;
+					break;
+				}
+			}
+		} else {
+			defCls = null;
+		}
+
+		pendingClass = defCls;
+
+		if (defCls != null && defCls.getMappedComment() != null) {
+			insertMemberStart(null, defCls.getMappedComment());
+		}
+	}
+
+	private void onFieldDefinition(String name) {
+		ClassInstance context = getClassContext();
+		if (context == null || member != null) return;
+
+		boolean isEnumConstant = lineText.toString().replace(",", "").isBlank(); // enum constants don't have a type in front
+		String typeName = isEnumConstant ? null : getTypeName(lineText);
+		FieldInstance field = null;
+
+		for (FieldInstance f : context.getFields()) {
+			if (!f.getName(nameType).equals(name)) continue;
+			if (field != null && typeName != null && !getSimpleName(f.getType()).equals(typeName)) continue;
+
+			if (field != null && (typeName == null || getSimpleName(field.getType()).equals(typeName))) {
+				return; // ambiguous
+			}
+
+			field = f;
+		}
+
+		if (field == null) return;
+
+		insertMemberStart(HtmlUtil.getId(field), field.getMappedComment());
+		member = field;
+		memberDepth = blocks.size();
+		memberIsField = true;
+		memberIsEnumConstant = isEnumConstant;
+	}
+
+	private void onMethodDefinition(String name) {
+		if (getClassContext() == null || member != null) return;
+
+		methodName = name.substring(name.lastIndexOf('.') + 1); // cfr prints constructors of nested top level classes qualified
+		methodParenDepth = parenDepth;
+		methodInsertPos = annotationStart >= 0 ? annotationStart : lineContentStart;
+		paramTypes.clear();
+		typeText.setLength(0);
+	}
+
+	private void onMethodParamsEnd() {
+		ClassInstance context = getClassContext();
+		MethodInstance method = context != null ? resolveMethod(context, methodName, paramTypes) : null;
+		methodName = null;
+
+		if (method == null) return;
+
+		int prevLength = out.length();
+		insertAt(methodInsertPos, HtmlUtil.getId(method), SrcDecorator.getMethodComment(method, arg -> arg.getName(nameType)));
+		lineHasMember = true;
+		member = method;
+		memberDepth = blocks.size();
+		memberIsField = false;
+		memberIsEnumConstant = false;
+
+		// keep positions recorded for the current line valid
+		if (lineContentStart >= methodInsertPos) lineContentStart += out.length() - prevLength;
+	}
+
+	private MethodInstance resolveMethod(ClassInstance context, String name, List<String> paramTypes) {
+		boolean isCtor = name.equals(getSimpleName(context));
+		MethodInstance ret = null;
+		int bestScore = -1;
+		boolean ambiguous = false;
+
+		for (MethodInstance method : context.getMethods()) {
+			if (isCtor ? !method.getName().equals("<init>") : !method.getName(nameType).equals(name)) continue;
+
+			MethodVarInstance[] args = method.getArgs();
+			int offset = args.length - paramTypes.size(); // cfr omits synthetic leading ctor args (enum name+ordinal, outer this)
+			if (offset < 0 || offset > 0 && !isCtor) continue;
+
+			// prefer matching parameter types, then matching parameter count, then non-synthetic methods (cfr hides bridges)
+			int score = (offset == 0 ? 2 : 0) + (!method.isSynthetic() ? 1 : 0);
+
+			for (int i = 0; i < paramTypes.size(); i++) {
+				if (paramTypes.get(i).equals(getSimpleName(args[offset + i].getType()))) score += 4;
+			}
+
+			if (score > bestScore) {
+				ret = method;
+				bestScore = score;
+				ambiguous = false;
+			} else if (score == bestScore) {
+				ambiguous = true;
+			}
+		}
+
+		return ambiguous ? null : ret;
+	}
+
+	private void insertMemberStart(String id, String comment) {
+		if (lineHasMember) { // further member on the same line, e.g. enum constants
+			insertAt(out.length(), id, null);
+			return;
+		}
+
+		int pos = annotationStart >= 0 ? annotationStart : lineContentStart;
+		int prevLength = out.length();
+
+		insertAt(pos, id, comment);
+		lineHasMember = true;
+
+		if (lineContentStart >= pos) lineContentStart += out.length() - prevLength;
+	}
+
+	private void insertAt(int pos, String id, String comment) {
+		StringBuilder sb = new StringBuilder();
+
+		if (id != null) {
+			sb.append("<span id=\"");
+			sb.append(id);
+			sb.append("\">");
+		}
+
+		if (comment != null && !comment.isEmpty()) {
+			sb.append("<span class=\"comment\">/**\n");
+
+			for (String line : comment.split("\\R")) {
+				for (int i = 0; i < indent; i++) sb.append('\t');
+				sb.append(" *");
+
+				if (!line.isBlank()) {
+					sb.append(' ');
+					sb.append(HtmlUtil.escape(line.stripTrailing()));
+				}
+
+				sb.append('\n');
+			}
+
+			for (int i = 0; i < indent; i++) sb.append('\t');
+			sb.append(" */</span>\n");
+			for (int i = 0; i < indent; i++) sb.append('\t');
+		}
+
+		out.insert(pos, sb);
+		if (annotationStart >= 0 && annotationStart > pos) annotationStart += sb.length();
+	}
+
+	private void closeMember() {
+		out.append("</span>");
+		member = null;
+	}
+
+	private ClassInstance getClassContext() {
+		return blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+	}
+
+	private String getSimpleName(ClassInstance type) {
+		if (type.isArray()) {
+			return getSimpleName(type.getElementClass()).concat("[]".repeat(type.getArrayDimensions()));
+		} else if (type.isPrimitive()) {
+			switch (type.getId().charAt(0)) {
+			case 'B': return "byte";
+			case 'C': return "char";
+			case 'D': return "double";
+			case 'F': return "float";
+			case 'I': return "int";
+			case 'J': return "long";
+			case 'S': return "short";
+			case 'V': return "void";
+			case 'Z': return "boolean";
+			default: return type.getId();
+			}
+		}
+
+		String name = type.getName(nameType);
+
+		return name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('$')) + 1);
+	}
+
+	/**
+	 * Extract the erased simple type name from the declaration text in front of a name.
+	 */
+	private static String getTypeName(CharSequence text) {
+		StringBuilder sb = new StringBuilder(text.length());
+		int genericDepth = 0;
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c == '<') {
+				genericDepth++;
+			} else if (c == '>') {
+				genericDepth--;
+			} else if (genericDepth == 0) {
+				sb.append(c);
+			}
+		}
+
+		String ret = sb.toString().replace("...", "[]");
+		int start = Math.max(ret.lastIndexOf('('), ret.lastIndexOf(','));
+		ret = ret.substring(start + 1).replaceAll("@[\\w.$]+(\\([^)]*\\))?", "").trim(); // strip annotations
+		ret = ret.substring(ret.lastIndexOf(' ') + 1); // strip modifiers
+
+		return ret.substring(ret.lastIndexOf('.') + 1);
+	}
+
+	private static final Set<String> classKeywords = Set.of("class", "interface", "enum", "record");
+	private static final Set<String> keywords = Set.of("abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+			"const", "continue", "default", "do", "double", "else", "enum", "extends", "false", "final", "finally", "float", "for",
+			"goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "non-sealed", "null",
+			"package", "permits", "private", "protected", "public", "record", "return", "sealed", "short", "static", "strictfp",
+			"super", "switch", "synchronized", "this", "throw", "throws", "transient", "true", "try", "var", "void", "volatile",
+			"while", "yield");
+
+	private final ClassInstance cls;
+	private final NameType nameType;
+	private final StringBuilder out = new StringBuilder();
+	private final List<ClassInstance> blocks = new ArrayList<>(); // declared class per open brace
+	private final StringBuilder lineText = new StringBuilder();
+	private final List<String> paramTypes = new ArrayList<>();
+	private final StringBuilder typeText = new StringBuilder();
+
+	private boolean failed;
+	private int indent;
+	private boolean lineStarted;
+	private boolean lastLineBlank;
+	private boolean inBlockComment;
+	private int lineContentStart;
+	private boolean lineIsAnnotation;
+	private boolean lineHasMember;
+	private int annotationStart = -1;
+	private int parenDepth;
+	private boolean inAnnotation;
+	private boolean expectClassName;
+	private ClassInstance pendingClass;
+	private MemberInstance<?> member;
+	private int memberDepth;
+	private boolean memberIsField;
+	private boolean memberIsEnumConstant;
+	private String methodName;
+	private int methodParenDepth;
+	private int methodInsertPos;
+}
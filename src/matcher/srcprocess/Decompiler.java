@@ -1,9 +1,28 @@
 package matcher.srcprocess;
 
+import java.util.concurrent.CancellationException;
+
 import matcher.NameType;
 import matcher.type.ClassFeatureExtractor;
 import matcher.type.ClassInstance;
 
 public interface Decompiler {
 	String decompile(ClassInstance cls, ClassFeatureExtractor extractor, NameType nameType);
+
+	/**
+	 * Decompile straight to the html otherwise produced by {@link SrcDecorator}, for decompilers exposing their output
+	 * structure.
+	 *
+	 * @return html or null if unsupported, in which case the source from {@link #decompile} should be decorated
+	 */
+	default String decompileHtml(ClassInstance cls, ClassFeatureExtractor extractor, NameType nameType) {
+		return null;
+	}
+
+	/**
+	 * Abort the decompilation if its thread got interrupted, for use in the decompilers' class loading callbacks.
+	 */
+	static void checkInterrupted() {
+		if (Thread.currentThread().isInterrupted()) throw new CancellationException("decompilation interrupted");
+	}
 }
@@ -158,7 +158,7 @@ public class Fernflower implements Decompiler {
 
 		private StructClass addStructClass(ClassInstance cls, boolean isOwn) throws IOException {
 			String name = cls.getName(nameType);
-			byte[] data = bcProvider.get(name); // BytecodeProvider has a name->byte[] cache to avoid redundant cls.serialize invocations
+			byte[] data = bcProvider.get(name); // cls.serialize caches the class files across decompiles
 			if (data == null) throw new IllegalStateException();
 
 			StructClass cl = StructClass.create(new DataInputFullStream(data), isOwn, loader);
@@ -294,23 +294,15 @@ public class Fernflower implements Decompiler {
 		}
 
 		public byte[] get(String name) {
-			byte[] ret = cache.get(name);
-			if (ret != null) return ret;
+			Decompiler.checkInterrupted();
 
 			ClassInstance cls = env.getClsByName(name, nameType);
 
-			if (cls != null) {
-				ret = cls.serialize(nameType);
-				cache.put(name, ret);
-			}
-
-			return ret;
+			return cls != null ? cls.serialize(nameType) : null;
 		}
 
 		protected final ClassEnv env;
 		protected final NameType nameType;
-
-		private final Map<String, byte[]> cache = new HashMap<>();
 	}
 
 	private static final boolean DEBUG = false;
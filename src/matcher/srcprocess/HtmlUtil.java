@@ -4,12 +4,18 @@ import matcher.type.FieldInstance;
 import matcher.type.MethodInstance;
 
 public class HtmlUtil {
+	/**
+	 * Get the html id for the method, qualified by its class to stay unique across nested classes.
+	 */
 	public static String getId(MethodInstance method) {
-		return "method-".concat(escapeId(method.getId()));
+		return "method-".concat(escapeId(method.getCls().getId().concat(method.getId())));
 	}
 
+	/**
+	 * Get the html id for the field, qualified by its class to stay unique across nested classes.
+	 */
 	public static String getId(FieldInstance field) {
-		return "field-".concat(escapeId(field.getId()));
+		return "field-".concat(escapeId(field.getCls().getId().concat(field.getId())));
 	}
 
 	private static String escapeId(String str) {
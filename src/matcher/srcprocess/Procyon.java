@@ -38,6 +38,8 @@ public class Procyon implements Decompiler {
 
 		@Override
 		public boolean tryLoadType(String internalName, Buffer buffer) {
+			Decompiler.checkInterrupted();
+
 			ClassInstance cls = env.getClsByName(internalName, nameType);
 
 			if (cls == null) {
@@ -0,0 +1,173 @@
+package matcher.srcprocess;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import matcher.NameType;
+import matcher.type.ClassInstance;
+
+/**
+ * Bounded LRU cache of decorated source html per class, name type and decompiler.
+ *
+ * The decompiler may be null for html not produced by a decompiler, e.g. rendered bytecode.
+ *
+ * Entries are tagged with the class' source version for the name type, see {@link ClassInstance#getSourceVersion},
+ * and ignored once it changed.
+ */
+public final class SourceCache {
+	public SourceCache(int maxEntries, long maxChars) {
+		this.maxEntries = maxEntries;
+		this.maxChars = maxChars;
+	}
+
+	public synchronized String get(ClassInstance cls, NameType nameType, BuiltinDecompiler decompiler, long version) {
+		return get(new Key(cls, nameType, decompiler), version);
+	}
+
+	private String get(Key key, long version) {
+		Entry entry = entries.get(key);
+		if (entry == null) return null;
+
+		if (entry.version != version) {
+			entries.remove(key);
+			totalChars -= entry.html.length();
+
+			return null;
+		}
+
+		return entry.html;
+	}
+
+	/**
+	 * Get the cached source or produce and cache it, the version has to be obtained before calling this method.
+	 *
+	 * Concurrent requests for the same source wait for the first one instead of producing it again. If the
+	 * producing thread gets cancelled, a waiting request takes over.
+	 */
+	public String getOrCompute(ClassInstance cls, NameType nameType, BuiltinDecompiler decompiler, long version, Supplier<String> producer) throws InterruptedException {
+		Key key = new Key(cls, nameType, decompiler);
+
+		for (;;) {
+			Pending pending;
+			boolean isOwner;
+
+			synchronized (this) {
+				String ret = get(key, version);
+				if (ret != null) return ret;
+
+				pending = pendingEntries.get(key);
+				isOwner = pending == null || pending.version != version;
+
+				if (isOwner) {
+					pending = new Pending(version);
+					pendingEntries.put(key, pending);
+				}
+			}
+
+			if (isOwner) {
+				try {
+					String ret = producer.get();
+					put(key, version, ret);
+					pending.future.complete(ret);
+
+					return ret;
+				} catch (Throwable t) {
+					pending.future.completeExceptionally(t);
+					throw t;
+				} finally {
+					synchronized (this) {
+						pendingEntries.remove(key, pending);
+					}
+				}
+			} else {
+				try {
+					return pending.future.get();
+				} catch (CancellationException e) {
+					// producer got cancelled, retry
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+					if (cause instanceof Error) throw (Error) cause;
+
+					throw new RuntimeException(cause);
+				}
+			}
+		}
+	}
+
+	private synchronized void put(Key key, long version, String html) {
+		if (html.length() > maxChars) return;
+
+		Entry prev = entries.put(key, new Entry(html, version));
+		if (prev != null) totalChars -= prev.html.length();
+		totalChars += html.length();
+
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext() && (entries.size() > maxEntries || totalChars > maxChars); ) {
+			totalChars -= it.next().html.length();
+			it.remove();
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		totalChars = 0;
+	}
+
+	private static final class Key {
+		Key(ClassInstance cls, NameType nameType, BuiltinDecompiler decompiler) {
+			this.cls = cls;
+			this.nameType = nameType;
+			this.decompiler = decompiler;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(cls, nameType, decompiler);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+
+			Key o = (Key) obj;
+
+			return cls == o.cls && nameType == o.nameType && decompiler == o.decompiler;
+		}
+
+		final ClassInstance cls;
+		final NameType nameType;
+		final BuiltinDecompiler decompiler;
+	}
+
+	private static final class Entry {
+		Entry(String html, long version) {
+			this.html = html;
+			this.version = version;
+		}
+
+		final String html;
+		final long version;
+	}
+
+	private static final class Pending {
+		Pending(long version) {
+			this.version = version;
+		}
+
+		final long version;
+		final CompletableFuture<String> future = new CompletableFuture<>();
+	}
+
+	private final int maxEntries;
+	private final long maxChars;
+	private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // access order, eldest first
+	private final Map<Key, Pending> pendingEntries = new HashMap<>();
+	private long totalChars;
+}
@@ -0,0 +1,96 @@
+package matcher.srcprocess;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+import matcher.Matcher;
+import matcher.NameType;
+import matcher.type.ClassEnvironment;
+import matcher.type.ClassInstance;
+
+/**
+ * Decompiles all input classes of one side into a source directory in package layout.
+ *
+ * Inner classes are part of their outer class' source file. A class failing to decompile or to be written doesn't
+ * abort the export, it gets reported in the result instead. The same applies to classes mapping to the name of an
+ * already exported class.
+ */
+public final class SourceExporter {
+	public static Result export(ClassEnvironment env, boolean sideA, BuiltinDecompiler decompiler, NameType nameType, Path dir,
+			DoubleConsumer progressReceiver, BooleanSupplier cancelled) {
+		List<ClassInstance> classes = new ArrayList<>();
+		Map<String, ClassInstance> names = new HashMap<>();
+		List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+
+		for (ClassInstance cls : (sideA ? env.getClassesA() : env.getClassesB())) {
+			if (!cls.isInput() || !cls.isReal() || cls.getOuterClass() != null) continue;
+
+			// colliding or partial mappings may map several classes to the same file, export only the first one
+			String name = cls.getName(nameType);
+			ClassInstance prev = names.putIfAbsent(name, cls);
+
+			if (prev != null) {
+				failures.add(new Failure(name, new FileAlreadyExistsException(name.concat(".java"), null, cls+" maps to the same name as "+prev)));
+			} else {
+				classes.add(cls);
+			}
+		}
+
+		AtomicInteger exported = new AtomicInteger();
+
+		Matcher.runInParallel(classes, cls -> {
+			if (cancelled.getAsBoolean()) return;
+
+			String name = cls.getName(nameType);
+
+			try {
+				String src = env.decompile(decompiler.get(), cls, nameType);
+				Path file = dir.resolve(name.concat(".java"));
+
+				Files.createDirectories(file.getParent());
+				Files.write(file, src.getBytes(StandardCharsets.UTF_8));
+				exported.incrementAndGet();
+			} catch (Throwable t) {
+				failures.add(new Failure(name, t));
+			}
+		}, progressReceiver);
+
+		if (cancelled.getAsBoolean()) throw new CancellationException();
+
+		failures.sort(Comparator.comparing(f -> f.name));
+
+		return new Result(exported.get(), failures);
+	}
+
+	public static final class Result {
+		Result(int exportedCount, List<Failure> failures) {
+			this.exportedCount = exportedCount;
+			this.failures = failures;
+		}
+
+		public final int exportedCount;
+		public final List<Failure> failures;
+	}
+
+	public static final class Failure {
+		Failure(String name, Throwable cause) {
+			this.name = name;
+			this.cause = cause;
+		}
+
+		public final String name;
+		public final Throwable cause;
+	}
+}
@@ -0,0 +1,470 @@
+package matcher.srcprocess;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+import matcher.Matcher;
+import matcher.NameType;
+import matcher.Util;
+import matcher.type.ClassEnvironment;
+import matcher.type.ClassInstance;
+import matcher.type.FieldInstance;
+import matcher.type.MemberInstance;
+import matcher.type.MethodInstance;
+
+/**
+ * Case insensitive full-text index over the decompiled sources of one side's input classes.
+ *
+ * Every top level class is indexed as one document with trigram postings, queries intersect the postings of their
+ * trigrams and verify the remaining candidates against the text. The member spans of the decorated html map hits to
+ * methods and fields.
+ *
+ * Updates only decompile classes whose {@link ClassInstance#getSourceVersion source version} changed since they were
+ * indexed, i.e. if any name used by their code or any of their comments changed. Updates without any name or comment
+ * change since the last complete update return immediately.
+ */
+public final class SourceIndex {
+	public SourceIndex(ClassEnvironment env, boolean sideA, BuiltinDecompiler decompiler, NameType nameType) {
+		this.env = env;
+		this.sideA = sideA;
+		this.decompiler = decompiler;
+		this.nameType = nameType;
+	}
+
+	public boolean isSideA() {
+		return sideA;
+	}
+
+	public BuiltinDecompiler getDecompiler() {
+		return decompiler;
+	}
+
+	public NameType getNameType() {
+		return nameType;
+	}
+
+	/**
+	 * Bring the index in line with the environment, decompiling new and changed classes in parallel.
+	 *
+	 * Classes get added as soon as they are decompiled, a cancelled update thus keeps its progress.
+	 *
+	 * @return number of (re-)indexed classes
+	 */
+	public int update(DoubleConsumer progressReceiver, BooleanSupplier cancelled) {
+		synchronized (updateLock) { // searches only wait for the individual additions
+			long epoch = env.getSourceEpoch(nameType);
+			if (indexedEpoch != null && indexedEpoch == epoch) return 0;
+
+			List<ClassInstance> classes = new ArrayList<>();
+
+			for (ClassInstance cls : (sideA ? env.getClassesA() : env.getClassesB())) {
+				if (cls.isInput() && cls.isReal() && cls.getOuterClass() == null) classes.add(cls);
+			}
+
+			AtomicInteger updated = new AtomicInteger();
+
+			Matcher.runInParallel(classes, cls -> {
+				if (cancelled.getAsBoolean()) return;
+
+				long version = cls.getSourceVersion(nameType);
+				if (isCurrent(cls, version)) return;
+
+				Document doc;
+
+				try {
+					doc = createDocument(cls, version);
+				} catch (Throwable t) {
+					System.err.println("error indexing "+cls+": "+t);
+					doc = new Document(cls, version, "", Collections.emptyList());
+				}
+
+				add(doc, getTrigrams(doc.text));
+				updated.incrementAndGet();
+			}, progressReceiver);
+
+			if (cancelled.getAsBoolean()) throw new CancellationException();
+
+			synchronized (this) {
+				Set<ClassInstance> live = Util.newIdentityHashSet(classes);
+
+				for (ClassInstance cls : new ArrayList<>(slots.keySet())) {
+					if (!live.contains(cls)) remove(cls);
+				}
+			}
+
+			// names changing during the update bumped the epoch, the next update re-checks them
+			indexedEpoch = epoch;
+
+			return updated.get();
+		}
+	}
+
+	private synchronized boolean isCurrent(ClassInstance cls, long version) {
+		Integer slot = slots.get(cls);
+
+		return slot != null && docs.get(slot).version == version;
+	}
+
+	private Document createDocument(ClassInstance cls, long version) {
+		String html = env.decompileHtml(decompiler.get(), cls, nameType);
+
+		if (html == null) {
+			String src = env.decompile(decompiler.get(), cls, nameType);
+
+			try {
+				html = SrcDecorator.decorate(src, cls, nameType);
+			} catch (SrcDecorator.SrcParseException e) {
+				return new Document(cls, version, src, Collections.emptyList());
+			}
+		}
+
+		Map<String, MemberInstance<?>> members = new HashMap<>();
+		collectMembers(cls, members);
+
+		// strip the markup, keeping the text and the extent of the elements with a member id
+
+		StringBuilder text = new StringBuilder(html.length());
+		List<MemberRange> ranges = new ArrayList<>();
+		List<MemberRange> openElements = new ArrayList<>();
+
+		for (int i = 0, max = html.length(); i < max; i++) {
+			char c = html.charAt(i);
+
+			if (c == '<') {
+				int end = html.indexOf('>', i);
+				if (end < 0) end = max - 1;
+
+				if (i + 1 < max && html.charAt(i + 1) == '/') {
+					if (!openElements.isEmpty()) {
+						MemberRange range = openElements.remove(openElements.size() - 1);
+
+						if (range != null) {
+							range.end = text.length();
+							ranges.add(range);
+						}
+					}
+				} else {
+					int idStart = indexOf(html, idAttribute, i, end);
+					MemberInstance<?> member = null;
+
+					if (idStart >= 0) {
+						idStart += idAttribute.length();
+						int idEnd = html.indexOf('"', idStart);
+						if (idEnd >= 0 && idEnd < end) member = members.get(html.substring(idStart, idEnd));
+					}
+
+					openElements.add(member != null ? new MemberRange(member, text.length()) : null);
+				}
+
+				i = end;
+			} else if (c == '&') {
+				int end = html.indexOf(';', i);
+				if (end < 0) end = max - 1;
+
+				switch (html.substring(i + 1, end)) {
+				case "lt": text.append('<'); break;
+				case "gt": text.append('>'); break;
+				case "amp": text.append('&'); break;
+				default: text.append(html, i, end + 1);
+				}
+
+				i = end;
+			} else {
+				text.append(c);
+			}
+		}
+
+		ranges.sort((a, b) -> Integer.compare(a.start, b.start));
+
+		return new Document(cls, version, text.toString(), ranges);
+	}
+
+	/**
+	 * Find str within [fromIndex, toIndex) of html, unlike String.indexOf not scanning past toIndex.
+	 */
+	private static int indexOf(String html, String str, int fromIndex, int toIndex) {
+		for (int i = fromIndex, max = toIndex - str.length(); i <= max; i++) {
+			if (html.startsWith(str, i)) return i;
+		}
+
+		return -1;
+	}
+
+	private static void collectMembers(ClassInstance cls, Map<String, MemberInstance<?>> out) {
+		for (MethodInstance method : cls.getMethods()) {
+			out.put(HtmlUtil.getId(method), method);
+		}
+
+		for (FieldInstance field : cls.getFields()) {
+			out.put(HtmlUtil.getId(field), field);
+		}
+
+		for (ClassInstance inner : cls.getInnerClasses()) {
+			collectMembers(inner, out);
+		}
+	}
+
+	/**
+	 * Add the document with its unique sorted trigrams, which only get stored as postings and not kept with the document.
+	 */
+	private synchronized void add(Document doc, long[] trigrams) {
+		remove(doc.cls);
+
+		int slot = docs.size();
+		docs.add(doc);
+		slots.put(doc.cls, slot);
+
+		for (long trigram : trigrams) {
+			postings.computeIfAbsent(trigram, ignore -> new Postings()).add(slot);
+		}
+	}
+
+	private void remove(ClassInstance cls) {
+		Integer slot = slots.remove(cls);
+		if (slot == null) return;
+
+		// the slot stays in the postings until compacted, search skips empty slots
+		docs.set(slot, null);
+		deadSlots++;
+
+		if (deadSlots > 1000 && deadSlots > docs.size() / 2) compact();
+	}
+
+	private void compact() {
+		List<Document> liveDocs = new ArrayList<>(slots.size());
+
+		for (Document doc : docs) {
+			if (doc != null) liveDocs.add(doc);
+		}
+
+		docs.clear();
+		slots.clear();
+		postings.clear();
+		deadSlots = 0;
+
+		for (Document doc : liveDocs) {
+			add(doc, getTrigrams(doc.text));
+		}
+	}
+
+	public synchronized int getDocumentCount() {
+		return slots.size();
+	}
+
+	/**
+	 * Find all occurrences of the query, ignoring case.
+	 *
+	 * @param maxHits maximum number of returned hits, further hits get dropped
+	 * @return hits ordered by class and position
+	 */
+	public synchronized List<Hit> search(String query, int maxHits) {
+		List<Hit> ret = new ArrayList<>();
+		if (query.isEmpty()) return ret;
+
+		List<Document> candidates = new ArrayList<>();
+
+		if (query.length() < 3) {
+			for (Document doc : docs) {
+				if (doc != null) candidates.add(doc);
+			}
+		} else {
+			long[] trigrams = getTrigrams(query);
+			Postings[] lists = new Postings[trigrams.length];
+
+			for (int i = 0; i < trigrams.length; i++) {
+				lists[i] = postings.get(trigrams[i]);
+				if (lists[i] == null) return ret;
+			}
+
+			Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+			int[] matches = Arrays.copyOf(lists[0].slots, lists[0].size);
+			int count = matches.length;
+
+			for (int i = 1; i < lists.length && count > 0; i++) {
+				count = intersect(matches, count, lists[i]);
+			}
+
+			for (int i = 0; i < count; i++) {
+				Document doc = docs.get(matches[i]);
+				if (doc != null) candidates.add(doc);
+			}
+		}
+
+		candidates.sort((a, b) -> a.name.compareTo(b.name));
+
+		for (Document doc : candidates) {
+			String text = doc.text;
+			// the hits are visited in ascending order, the line and member state only moves forward
+			int line = 1;
+			int linePos = 0; // position up to which newlines are counted in line
+			int rangeIdx = 0;
+			Deque<MemberRange> openRanges = new ArrayDeque<>();
+
+			for (int pos = indexOfIgnoreCase(text, query, 0); pos >= 0; pos = indexOfIgnoreCase(text, query, pos + query.length())) {
+				if (ret.size() >= maxHits) return ret;
+
+				for (; linePos < pos; linePos++) {
+					if (text.charAt(linePos) == '\n') line++;
+				}
+
+				// ranges nest, so the most recently opened range still containing pos is the innermost one
+				while (rangeIdx < doc.ranges.size() && doc.ranges.get(rangeIdx).start <= pos) {
+					openRanges.push(doc.ranges.get(rangeIdx++));
+				}
+
+				while (!openRanges.isEmpty() && openRanges.peek().end <= pos) {
+					openRanges.pop();
+				}
+
+				ret.add(createHit(doc, pos, line, openRanges.isEmpty() ? null : openRanges.peek().member));
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Retain the sorted slots also present in the supplied postings, returns the new slot count.
+	 */
+	private static int intersect(int[] slots, int count, Postings list) {
+		int ret = 0;
+		int j = 0;
+
+		for (int i = 0; i < count && j < list.size; i++) {
+			int slot = slots[i];
+
+			while (j < list.size && list.slots[j] < slot) j++;
+
+			if (j < list.size && list.slots[j] == slot) slots[ret++] = slot;
+		}
+
+		return ret;
+	}
+
+	private static int indexOfIgnoreCase(String str, String query, int fromIndex) {
+		for (int i = fromIndex, max = str.length() - query.length(); i <= max; i++) {
+			if (str.regionMatches(true, i, query, 0, query.length())) return i;
+		}
+
+		return -1;
+	}
+
+	private static Hit createHit(Document doc, int pos, int line, MemberInstance<?> member) {
+		String text = doc.text;
+		int lineStart = text.lastIndexOf('\n', pos - 1) + 1;
+		int lineEnd = text.indexOf('\n', pos);
+		if (lineEnd < 0) lineEnd = text.length();
+
+		return new Hit(member != null ? member.getCls() : doc.cls, member, line, text.substring(lineStart, lineEnd).trim());
+	}
+
+	private static long[] getTrigrams(CharSequence str) {
+		int count = str.length() - 2;
+		if (count <= 0) return new long[0];
+
+		long[] ret = new long[count];
+
+		for (int i = 0; i < count; i++) {
+			ret[i] = (long) Character.toLowerCase(str.charAt(i)) << 32
+					| (long) Character.toLowerCase(str.charAt(i + 1)) << 16
+					| Character.toLowerCase(str.charAt(i + 2));
+		}
+
+		Arrays.sort(ret);
+
+		int unique = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (i == 0 || ret[i] != ret[unique - 1]) ret[unique++] = ret[i];
+		}
+
+		return Arrays.copyOf(ret, unique);
+	}
+
+	public static final class Hit {
+		Hit(ClassInstance cls, MemberInstance<?> member, int line, String lineText) {
+			this.cls = cls;
+			this.member = member;
+			this.line = line;
+			this.lineText = lineText;
+		}
+
+		/**
+		 * Class declaring the member or top level class containing the hit.
+		 */
+		public final ClassInstance cls;
+		/**
+		 * Innermost method or field containing the hit, or null.
+		 */
+		public final MemberInstance<?> member;
+		public final int line;
+		public final String lineText;
+	}
+
+	private static final class Document {
+		Document(ClassInstance cls, long version, String text, List<MemberRange> ranges) {
+			this.cls = cls;
+			this.name = cls.getName();
+			this.version = version;
+			this.text = text;
+			this.ranges = ranges;
+		}
+
+		final ClassInstance cls;
+		final String name;
+		final long version;
+		final String text;
+		final List<MemberRange> ranges;
+	}
+
+	private static final class MemberRange {
+		MemberRange(MemberInstance<?> member, int start) {
+			this.member = member;
+			this.start = start;
+		}
+
+		final MemberInstance<?> member;
+		final int start;
+		int end;
+	}
+
+	/**
+	 * Growable sorted slot list.
+	 */
+	private static final class Postings {
+		void add(int slot) {
+			if (size == slots.length) slots = Arrays.copyOf(slots, slots.length * 2);
+
+			slots[size++] = slot;
+		}
+
+		int[] slots = new int[4];
+		int size;
+	}
+
+	private static final String idAttribute = "id=\"";
+
+	private final ClassEnvironment env;
+	private final boolean sideA;
+	private final BuiltinDecompiler decompiler;
+	private final NameType nameType;
+	private final List<Document> docs = new ArrayList<>();
+	private final Map<ClassInstance, Integer> slots = new IdentityHashMap<>();
+	private final Map<Long, Postings> postings = new HashMap<>();
+	private int deadSlots;
+	private final Object updateLock = new Object();
+	private Long indexedEpoch;
+}
@@ -2,6 +2,7 @@ package matcher.srcprocess;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.github.javaparser.JavaParser;
@@ -56,10 +57,7 @@ public class SrcDecorator {
 			}
 		}
 
-		JavaParser parser = new JavaParser(new ParserConfiguration()
-				.setLanguageLevel(LanguageLevel.RAW));
-
-		ParseResult<CompilationUnit> result = parser.parse(src);
+		ParseResult<CompilationUnit> result = parser.get().parse(src);
 
 		if (!result.isSuccessful()) {
 			throw new SrcParseException(result.getProblems(), src);
@@ -110,6 +108,13 @@ public class SrcDecorator {
 	}
 
 	private static void handleMethodComment(MethodInstance method, Node n, TypeResolver resolver) {
+		handleComment(getMethodComment(method, resolver::getName), n);
+	}
+
+	/**
+	 * Get the method's mapped comment including its args' comments as @param lines.
+	 */
+	static String getMethodComment(MethodInstance method, Function<MethodVarInstance, String> argNameGetter) {
 		String comment = method.getMappedComment();
 		StringBuilder argComments = null;
 
@@ -120,7 +125,7 @@ public class SrcDecorator {
 				if (argComments == null) argComments = new StringBuilder();
 
 				argComments.append("@param ");
-				argComments.append(resolver.getName(arg));
+				argComments.append(argNameGetter.apply(arg));
 				argComments.append(' ');
 				argComments.append(argComment.replace("\n", "\n  "));
 				argComments.append('\n');
@@ -139,9 +144,12 @@ public class SrcDecorator {
 			}
 		}
 
-		handleComment(comment, n);
+		return comment;
 	}
 
+	private static final ParserConfiguration parserConfig = new ParserConfiguration().setLanguageLevel(LanguageLevel.RAW);
+	private static final ThreadLocal<JavaParser> parser = ThreadLocal.withInitial(() -> new JavaParser(parserConfig)); // parsers are reusable but not thread safe
+
 	private static final VoidVisitorAdapter<TypeResolver> remapVisitor = new VoidVisitorAdapter<TypeResolver>() {
 		@Override
 		public void visit(CompilationUnit n, TypeResolver resolver) {
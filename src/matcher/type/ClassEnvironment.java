@@ -20,10 +20,16 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.DoubleConsumer;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 import org.objectweb.asm.ClassReader;
@@ -33,10 +39,12 @@ import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.InnerClassNode;
 import org.objectweb.asm.tree.MethodNode;
 
+import matcher.JarReader;
 import matcher.NameType;
 import matcher.Util;
 import matcher.classifier.ClassifierUtil;
 import matcher.classifier.MatchingCache;
+import matcher.config.Config;
 import matcher.config.ProjectConfig;
 import matcher.srcprocess.Decompiler;
 import matcher.type.Signature.ClassSignature;
@@ -48,12 +56,23 @@ public class ClassEnvironment implements ClassEnv {
 		double progress = 0;
 
 		inputsBeforeClassPath = config.hasInputsBeforeClassPath();
+		lowMemoryMode = Config.getLowMemoryMode();
+		serializedClassCache = new SerializedClassCache(lowMemoryMode ? lowMemSerializedCacheBytes : serializedCacheBytes);
 		nonObfuscatedClassPatternA = config.getNonObfuscatedClassPatternA().isEmpty() ? null : Pattern.compile(config.getNonObfuscatedClassPatternA());
 		nonObfuscatedClassPatternB = config.getNonObfuscatedClassPatternB().isEmpty() ? null : Pattern.compile(config.getNonObfuscatedClassPatternB());
 		nonObfuscatedMemberPatternA = config.getNonObfuscatedMemberPatternA().isEmpty() ? null : Pattern.compile(config.getNonObfuscatedMemberPatternA());
 		nonObfuscatedMemberPatternB = config.getNonObfuscatedMemberPatternB().isEmpty() ? null : Pattern.compile(config.getNonObfuscatedMemberPatternB());
 
 		try {
+			// parallel input hashing, the InputFile instances created while reading the inputs will hit the hash cache
+			List<Path> allPaths = new ArrayList<>();
+			allPaths.addAll(config.getPathsA());
+			allPaths.addAll(config.getPathsB());
+			allPaths.addAll(config.getSharedClassPath());
+			allPaths.addAll(config.getClassPathA());
+			allPaths.addAll(config.getClassPathB());
+			InputFile.precomputeHashes(allPaths);
+
 			for (int i = 0; i < 2; i++) {
 				if ((i == 0) != inputsBeforeClassPath) {
 					// class path indexing
@@ -79,12 +98,18 @@ public class ClassEnvironment implements ClassEnv {
 
 			extractorB.process(nonObfuscatedMemberPatternB);
 			progressReceiver.accept(0.98);
+
+			if (lowMemoryMode) {
+				extractorA.releaseCode();
+				extractorB.releaseCode();
+			}
 		} catch (InterruptedException | ExecutionException | IOException e) {
 			throw new RuntimeException(e);
 		} finally {
 			classPathIndex.clear();
 			openFileSystems.forEach(Util::closeSilently);
 			openFileSystems.clear();
+			InputFile.saveHashCache();
 		}
 
 		progressReceiver.accept(1);
@@ -94,23 +119,26 @@ public class ClassEnvironment implements ClassEnv {
 		for (Path archive : sharedClassPath) {
 			cpFiles.add(new InputFile(archive));
 
-			FileSystem fs = Util.iterateJar(archive, false, file -> {
-				String name = file.toAbsolutePath().toString();
-				if (!name.startsWith("/") || !name.endsWith(".class") || name.startsWith("//")) throw new RuntimeException("invalid path: "+archive+" ("+name+")");
-				name = name.substring(1, name.length() - ".class".length());
+			Util.iterateJar(archive, entry -> {
+				String name = getClassName(entry);
 
 				if (!checkExisting || extractorA.getLocalClsByName(name) == null || extractorB.getLocalClsByName(name) == null) {
-					classPathIndex.putIfAbsent(name, file);
+					classPathIndex.putIfAbsent(name, entry);
 
 					/*ClassNode cn = readClass(file);
 					addSharedCls(new ClassInstance(ClassInstance.getId(cn.name), file.toUri(), cn));*/
 				}
 			});
-
-			if (fs != null) openFileSystems.add(fs);
 		}
 	}
 
+	static String getClassName(JarReader.Entry entry) {
+		String name = entry.getName();
+		if (name.startsWith("/") || !name.endsWith(".class")) throw new RuntimeException("invalid path: "+entry);
+
+		return name.substring(0, name.length() - ".class".length());
+	}
+
 	public void reset() {
 		cpFiles.clear();
 		sharedClasses.clear();
@@ -118,6 +146,10 @@ public class ClassEnvironment implements ClassEnv {
 		extractorA.reset();
 		extractorB.reset();
 		cache.clear();
+		symbolPool.clear();
+		staleSimilarities.clear();
+		requestedSimilarities.clear();
+		serializedClassCache.clear();
 	}
 
 	public void addOpenFileSystem(FileSystem fs) {
@@ -255,7 +287,7 @@ public class ClassEnvironment implements ClassEnv {
 		return cls;
 	}
 
-	public Path getSharedClassLocation(String name) {
+	public JarReader.Entry getSharedClassLocation(String name) {
 		return classPathIndex.get(name);
 	}
 
@@ -310,17 +342,24 @@ public class ClassEnvironment implements ClassEnv {
 	}
 
 	public String decompile(Decompiler decompiler, ClassInstance cls, NameType nameType) {
-		ClassFeatureExtractor extractor;
+		return decompiler.decompile(cls, getLocalExtractor(cls), nameType);
+	}
 
+	/**
+	 * Decompile to html if supported by the decompiler, see {@link Decompiler#decompileHtml}.
+	 */
+	public String decompileHtml(Decompiler decompiler, ClassInstance cls, NameType nameType) {
+		return decompiler.decompileHtml(cls, getLocalExtractor(cls), nameType);
+	}
+
+	private ClassFeatureExtractor getLocalExtractor(ClassInstance cls) {
 		if (extractorA.getLocalClsById(cls.getId()) == cls) {
-			extractor = extractorA;
+			return extractorA;
 		} else if (extractorB.getLocalClsById(cls.getId()) == cls) {
-			extractor = extractorB;
+			return extractorB;
 		} else {
 			throw new IllegalArgumentException("unknown class: "+cls);
 		}
-
-		return decompiler.decompile(cls, extractor, nameType);
 	}
 
 	@Override
@@ -365,20 +404,31 @@ public class ClassEnvironment implements ClassEnv {
 			}
 
 			String name = ClassInstance.getName(id);
-			Path file = getSharedClassLocation(name);
+			JarReader.Entry entry = getSharedClassLocation(name);
+			ClassInstance cls = null;
 
-			if (file == null) {
-				URL url = ClassLoader.getSystemResource(name+".class");
+			if (entry != null) {
+				ClassNode cn = readClass(entry, true);
+				cls = new ClassInstance(ClassInstance.getId(cn.name), entry.getReader().getUri(), this, cn);
+			} else {
+				JdkClassIndex.Entry jdkEntry = JdkClassIndex.find(name);
 
-				if (url != null) {
-					file = getPath(url);
+				if (jdkEntry != null) {
+					ClassNode cn = readClass(jdkEntry.read(), true);
+					cls = new ClassInstance(ClassInstance.getId(cn.name), jdkEntry.getModuleUri(), this, cn);
+				} else {
+					URL url = ClassLoader.getSystemResource(name+".class");
+
+					if (url != null) {
+						Path file = getPath(url);
+						ClassNode cn = readClass(file, true);
+						cls = new ClassInstance(ClassInstance.getId(cn.name), getContainingUri(file.toUri(), cn.name), this, cn);
+					}
 				}
 			}
 
-			if (file != null) {
-				ClassNode cn = readClass(file, true);
-				ClassInstance cls = new ClassInstance(ClassInstance.getId(cn.name), getContainingUri(file.toUri(), cn.name), this, cn);
-				if (!cls.getId().equals(id)) throw new RuntimeException("mismatched cls id "+id+" for "+file+", expected "+name);
+			if (cls != null) {
+				if (!cls.getId().equals(id)) throw new RuntimeException("mismatched cls id "+id+" for "+(entry != null ? entry : name)+", expected "+name);
 
 				ClassInstance ret = addSharedCls(cls);
 
@@ -465,18 +515,31 @@ public class ClassEnvironment implements ClassEnv {
 		}
 	}
 
-	static ClassNode readClass(Path path, boolean skipCode) {
+	ClassNode readClass(Path path, boolean skipCode) {
 		try {
-			ClassReader reader = new ClassReader(Files.readAllBytes(path));
-			ClassNode cn = new ClassNode();
-			reader.accept(cn, ClassReader.EXPAND_FRAMES | (skipCode ? ClassReader.SKIP_CODE : 0));
+			return readClass(Files.readAllBytes(path), skipCode);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
 
-			return cn;
+	ClassNode readClass(JarReader.Entry entry, boolean skipCode) {
+		try {
+			return readClass(entry.read(), skipCode);
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
 	}
 
+	private ClassNode readClass(byte[] data, boolean skipCode) {
+		ClassReader reader = new ClassReader(data);
+		ClassNode cn = new ClassNode();
+		reader.accept(cn, ClassReader.EXPAND_FRAMES | (skipCode ? ClassReader.SKIP_CODE : 0));
+		symbolPool.intern(cn);
+
+		return cn;
+	}
+
 	/**
 	 * 1st class processing pass, member+class hierarchy and signature initialization.
 	 *
@@ -608,15 +671,184 @@ public class ClassEnvironment implements ClassEnv {
 		return cache;
 	}
 
+	SymbolPool getSymbolPool() {
+		return symbolPool;
+	}
+
+	SerializedClassCache getSerializedClassCache() {
+		return serializedClassCache;
+	}
+
+	/**
+	 * Invalidate the name indices of all name types whose names may be affected by a change.
+	 */
+	void invalidateNames(Predicate<NameType> affected) {
+		for (NameType type : NameType.values()) {
+			if (affected.test(type)) nameEpochs.incrementAndGet(type.ordinal());
+		}
+	}
+
+	/**
+	 * Capture the names of a matchable for all name types, see {@link #invalidateChangedNames}.
+	 */
+	static String[] getNames(Matchable<?> matchable) {
+		NameType[] types = NameType.values();
+		String[] ret = new String[types.length];
+
+		for (NameType type : types) {
+			ret[type.ordinal()] = matchable.getName(type);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Invalidate the name types whose name for the matchable changed since capturing prevNames, and the comments if
+	 * its comment changed. Derived names (inner classes, descriptors, hierarchy members) follow the matchable's own.
+	 */
+	void invalidateChangedNames(Matchable<?> matchable, String[] prevNames, String prevComment) {
+		for (NameType type : NameType.values()) {
+			if (!Objects.equals(prevNames[type.ordinal()], matchable.getName(type))) nameEpochs.incrementAndGet(type.ordinal());
+		}
+
+		if (!Objects.equals(prevComment, matchable.getMappedComment())) invalidateComments();
+	}
+
+	int getNameEpoch(NameType type) {
+		return nameEpochs.get(type.ordinal());
+	}
+
+	void invalidateComments() {
+		commentEpoch.incrementAndGet();
+	}
+
+	/**
+	 * Get a version covering all names of the name type and all comments, it changes whenever decompiled source
+	 * for the name type may change.
+	 */
+	public long getSourceEpoch(NameType type) {
+		return (long) getNameEpoch(type) << 32 | commentEpoch.get() & 0xffffffffL;
+	}
+
+	/**
+	 * Mark the cached similarity of the class and of all classes referencing it in their signatures or code as stale.
+	 */
+	void invalidateSimilarity(ClassInstance cls) {
+		addStaleSimilarity(cls);
+		addStaleSimilarity(cls.methodTypeRefs);
+		addStaleSimilarity(cls.fieldTypeRefs);
+
+		for (ClassInstance type : cls.getArrays()) {
+			addStaleSimilarity(type.methodTypeRefs);
+			addStaleSimilarity(type.fieldTypeRefs);
+		}
+	}
+
+	/**
+	 * Mark the cached similarity of the member's class and of all classes accessing the member as stale.
+	 */
+	void invalidateSimilarity(MemberInstance<?> member) {
+		addStaleSimilarity(member.getCls());
+
+		if (member instanceof MethodInstance) {
+			addStaleSimilarity(((MethodInstance) member).refsIn);
+		} else {
+			FieldInstance field = (FieldInstance) member;
+			addStaleSimilarity(field.readRefs);
+			addStaleSimilarity(field.writeRefs);
+		}
+	}
+
+	void invalidateSimilarity(MethodVarInstance var) {
+		addStaleSimilarity(var.getMethod().getCls());
+	}
+
+	private void addStaleSimilarity(Set<? extends MemberInstance<?>> members) {
+		for (MemberInstance<?> member : members) {
+			addStaleSimilarity(member.getCls());
+		}
+	}
+
+	private void addStaleSimilarity(ClassInstance cls) {
+		if (cls.isShared()) return;
+
+		staleSimilarities.add(cls);
+
+		ClassInstance match = cls.getMatch();
+		if (match != null) staleSimilarities.add(match);
+	}
+
+	/**
+	 * Queue a class without cached similarity for computation by the next {@link #updateSimilarities}.
+	 */
+	void requestSimilarity(ClassInstance cls) {
+		requestedSimilarities.add(cls);
+	}
+
+	/**
+	 * Whether there are stale or requested class similarities for {@link #updateSimilarities} to process.
+	 */
+	public boolean hasPendingSimilarities() {
+		return !staleSimilarities.isEmpty() || !requestedSimilarities.isEmpty();
+	}
+
+	/**
+	 * Recompute all cached class similarities invalidated by match changes since the last update and compute the
+	 * requested ones.
+	 *
+	 * Stale similarities that were never requested are skipped.
+	 *
+	 * @return whether any cached similarity changed
+	 */
+	public boolean updateSimilarities() {
+		Set<ClassInstance> requested = Util.newIdentityHashSet();
+
+		for (Iterator<ClassInstance> it = requestedSimilarities.iterator(); it.hasNext(); ) {
+			requested.add(it.next());
+			it.remove();
+		}
+
+		List<ClassInstance> classes = new ArrayList<>(requested);
+
+		for (Iterator<ClassInstance> it = staleSimilarities.iterator(); it.hasNext(); ) {
+			ClassInstance cls = it.next();
+			it.remove();
+
+			if (!requested.contains(cls)) classes.add(cls);
+		}
+
+		AtomicBoolean changed = new AtomicBoolean();
+
+		classes.parallelStream().forEach(cls -> {
+			if (cls.updateCachedSimilarity(requested.contains(cls))) changed.set(true);
+		});
+
+		return changed.get();
+	}
+
+	/**
+	 * Whether input class code was released after feature extraction and any loaded code is only kept softly referenced.
+	 */
+	public boolean isLowMemoryMode() {
+		return lowMemoryMode;
+	}
+
 	private final List<InputFile> cpFiles = new ArrayList<>();
 	private final Map<String, ClassInstance> sharedClasses = new HashMap<>();
 	public final List<FileSystem> openFileSystems = new ArrayList<>();
-	public final Map<String, Path> classPathIndex = new HashMap<>();
+	public final Map<String, JarReader.Entry> classPathIndex = new HashMap<>();
 	private final ClassFeatureExtractor extractorA = new ClassFeatureExtractor(this);
 	private final ClassFeatureExtractor extractorB = new ClassFeatureExtractor(this);
 	private final MatchingCache cache = new MatchingCache();
+	private final SymbolPool symbolPool = new SymbolPool();
+	private final AtomicIntegerArray nameEpochs = new AtomicIntegerArray(NameType.values().length);
+	private final AtomicInteger commentEpoch = new AtomicInteger();
+	private SerializedClassCache serializedClassCache = new SerializedClassCache(serializedCacheBytes);
+	private final Set<ClassInstance> staleSimilarities = ConcurrentHashMap.newKeySet();
+	private final Set<ClassInstance> requestedSimilarities = ConcurrentHashMap.newKeySet();
 
 	private boolean inputsBeforeClassPath;
+	private boolean lowMemoryMode;
 	private Pattern nonObfuscatedClassPatternA;
 	private Pattern nonObfuscatedClassPatternB;
 	private Pattern nonObfuscatedMemberPatternA;
@@ -624,6 +856,30 @@ public class ClassEnvironment implements ClassEnv {
 
 	public boolean assumeBothOrNoneObfuscated = false;
 
+	private static final long serializedCacheBytes = 128L << 20;
+	private static final long lowMemSerializedCacheBytes = 16L << 20;
+
+	static final Predicate<NameType> mappedNameTypes = type -> type.mapped;
+	static final Predicate<NameType> tmpNameTypes = type -> type.tmp || type == NameType.MAPPED_LOCTMP_PLAIN || type == NameType.LOCTMP_PLAIN;
+	static final Predicate<NameType> uidNameTypes = type -> type == NameType.UID_PLAIN;
+
+	/**
+	 * Get the name types resolving through the aux name with the supplied index, other aux names are unaffected.
+	 */
+	static Predicate<NameType> getAuxNameTypes(int index) {
+		return auxNameTypes[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	private static final Predicate<NameType>[] auxNameTypes = new Predicate[NameType.AUX_COUNT];
+
+	static {
+		for (int i = 0; i < NameType.AUX_COUNT; i++) {
+			int index = i;
+			auxNameTypes[i] = type -> type.isAux() && type.getAuxIndex() == index;
+		}
+	}
+
 	public String classUidPrefix = "class_";
 	public String methodUidPrefix = "method_";
 	public String fieldUidPrefix = "field_";
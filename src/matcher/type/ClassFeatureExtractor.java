@@ -1,12 +1,12 @@
 package matcher.type;
 
 import java.net.URI;
-import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -18,6 +18,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
@@ -28,6 +29,7 @@ import org.objectweb.asm.tree.InvokeDynamicInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.TypeInsnNode;
 
+import matcher.JarReader;
 import matcher.NameType;
 import matcher.Util;
 import matcher.type.Analysis.CommonClasses;
@@ -45,14 +47,21 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 			inputFiles.add(new InputFile(archive));
 			URI origin = archive.toUri();
 
-			Util.iterateJar(archive, true, file -> {
-				ClassInstance cls = readClass(file, origin, obfuscatedCheck);
+			List<JarReader.Entry> entries = new ArrayList<>();
+			Util.iterateJar(archive, entries::add);
+
+			// parse in parallel (entries of the same archive can be read concurrently), then register in archive order
+			List<ClassInstance> inputClasses = entries.parallelStream()
+					.map(entry -> readClass(entry, origin, obfuscatedCheck))
+					.collect(Collectors.toList());
+
+			for (ClassInstance cls : inputClasses) {
 				String id = cls.getId();
 				String name = cls.getName();
 
-				if (env.getSharedClsById(id) != null) return;
-				if (env.getSharedClassLocation(name) != null) return;
-				if (classPathIndex.containsKey(name)) return;
+				if (env.getSharedClsById(id) != null) continue;
+				if (env.getSharedClassLocation(name) != null) continue;
+				if (classPathIndex.containsKey(name)) continue;
 
 				ClassInstance prev = classes.get(id);
 
@@ -61,7 +70,7 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 				} else if (prev.isInput()) {
 					mergeClasses(cls, prev);
 				}
-			});
+			}
 		}
 	}
 
@@ -69,20 +78,16 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 		for (Path archive : classPath) {
 			cpFiles.add(new InputFile(archive));
 
-			FileSystem fs = Util.iterateJar(archive, false, file -> {
-				String name = file.toAbsolutePath().toString();
-				if (!name.startsWith("/") || !name.endsWith(".class") || name.startsWith("//")) throw new RuntimeException("invalid path: "+archive+" ("+name+")");
-				name = name.substring(1, name.length() - ".class".length());
+			Util.iterateJar(archive, entry -> {
+				String name = ClassEnvironment.getClassName(entry);
 
 				if (!checkExisting || getLocalClsByName(name) == null && env.getSharedClassLocation(name) == null && env.getLocalClsByName(name) == null) {
-					classPathIndex.putIfAbsent(name, file);
+					classPathIndex.putIfAbsent(name, entry);
 
 					/*ClassNode cn = readClass(file);
 					addSharedCls(new ClassInstance(ClassInstance.getId(cn.name), file.toUri(), cn));*/
 				}
 			});
-
-			if (fs != null) env.addOpenFileSystem(fs);
 		}
 	}
 
@@ -90,10 +95,10 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 		return pattern == null || !pattern.matcher(cn.name).matches();
 	}
 
-	private ClassInstance readClass(Path path, URI origin, Predicate<ClassNode> nameObfuscated) {
-		ClassNode cn = ClassEnvironment.readClass(path, false);
+	private ClassInstance readClass(JarReader.Entry entry, URI origin, Predicate<ClassNode> nameObfuscated) {
+		ClassNode cn = env.readClass(entry, false);
 
-		return new ClassInstance(ClassInstance.getId(cn.name), origin, this, cn, nameObfuscated.test(cn));
+		return new ClassInstance(ClassInstance.getId(cn.name), origin, this, cn, nameObfuscated.test(cn), entry);
 	}
 
 	private static void mergeClasses(ClassInstance from, ClassInstance to) {
@@ -153,10 +158,33 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 			processClassE(cls, curClsIdx, vmIdx);
 		}
 
+		// the reference graph is complete, switch to the compact representation
+		for (ClassInstance cls : classes.values()) {
+			cls.freezeRefs();
+		}
+
+		for (ClassInstance cls : arrayClasses.values()) {
+			cls.freezeRefs();
+		}
+
+		// outer classes and member hierarchies are linked now, names resolved before aren't valid anymore
+		env.invalidateNames(type -> true);
+
 		initStep++;
 	}
 
+	/**
+	 * Drop the method code of all input classes, it'll be re-read from the input archives on demand.
+	 */
+	void releaseCode() {
+		for (ClassInstance cls : classes.values()) {
+			if (cls.isInput()) cls.releaseCode();
+		}
+	}
+
 	public void reset() {
+		classNameIndices.clear();
+		arrayClassNameIndices.clear();
 		inputFiles.clear();
 		cpFiles.clear();
 		classPathIndex.clear();
@@ -183,6 +211,8 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 	 * All (known) classes and members are fully available at this point.
 	 */
 	private void processClassB(ClassInstance cls) {
+		if (!cls.isInput()) return; // class path classes are loaded without code, there are no references to gather
+
 		for (MethodInstance method : cls.methods) {
 			processMethodInsns(method);
 		}
@@ -546,35 +576,40 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 	@Override
 	public ClassInstance getClsById(String id, NameType nameType) {
 		if (nameType != NameType.PLAIN && id.charAt(id.length() - 1) == ';') { // no local primitives or primitive arrays
+			ClassInstance ret;
+
 			if (id.charAt(0) == '[') {
 				int start = 1;
 				while (id.charAt(start) == '[') start++;
 				assert id.charAt(start) == 'L';
 
-				int reqNameLen = id.length() - 2 - start;
-
-				for (ClassInstance cls : arrayClasses.values()) {
-					String name = cls.getName(nameType);
-					if (name == null || name.length() != reqNameLen) continue;
-
-					if (id.startsWith(name, start + 1)) return cls;
-				}
+				ret = getClassNameIndex(nameType, true).getFirst(id.substring(start + 1, id.length() - 1));
 			} else {
 				assert id.charAt(0) == 'L';
-				int reqNameLen = id.length() - 2;
-
-				for (ClassInstance cls : classes.values()) {
-					String name = cls.getName(nameType);
-					if (name == null || name.length() != reqNameLen) continue;
 
-					if (id.startsWith(name, 1)) return cls;
-				}
+				ret = getClassNameIndex(nameType, false).getFirst(id.substring(1, id.length() - 1));
 			}
+
+			if (ret != null) return ret;
 		}
 
 		return getClsById(id);
 	}
 
+	private synchronized NameIndex<ClassInstance> getClassNameIndex(NameType nameType, boolean arrays) {
+		Map<String, ClassInstance> map = arrays ? arrayClasses : classes;
+		Map<NameType, NameIndex<ClassInstance>> indices = arrays ? arrayClassNameIndices : classNameIndices;
+		int epoch = env.getNameEpoch(nameType);
+		NameIndex<ClassInstance> ret = indices.get(nameType);
+
+		if (ret == null || !ret.isValid(epoch, map.size())) {
+			ret = new NameIndex<>(map.values(), nameType, epoch);
+			indices.put(nameType, ret);
+		}
+
+		return ret;
+	}
+
 	@Override
 	public ClassInstance getCreateClassInstance(String id, boolean createUnknown) {
 		if (id.length() == 0) throw new IllegalArgumentException("empty class desc");
@@ -631,18 +666,18 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 		if (id.length() <= 1) return null; // primitive
 
 		String name = ClassInstance.getName(id);
-		Path file = classPathIndex.get(name);
-		if (file == null) return null;
+		JarReader.Entry entry = classPathIndex.get(name);
+		if (entry == null) return null;
 
-		ClassNode cn = ClassEnvironment.readClass(file, false);
-		ClassInstance cls = new ClassInstance(ClassInstance.getId(cn.name), ClassEnvironment.getContainingUri(file.toUri(), cn.name), this, cn);
-		if (!cls.getId().equals(id)) throw new RuntimeException("mismatched cls id "+id+" for "+file+", expected "+name);
+		// only read the class header and members, the code is loaded on demand (decompiler, bytecode view etc.)
+		ClassNode cn = env.readClass(entry, true);
+		ClassInstance cls = new ClassInstance(ClassInstance.getId(cn.name), entry.getReader().getUri(), this, cn, entry);
+		if (!cls.getId().equals(id)) throw new RuntimeException("mismatched cls id "+id+" for "+entry+", expected "+name);
 
 		ClassInstance prev = classes.putIfAbsent(cls.getId(), cls);
 		assert prev == null;
 
 		if (initStep > 0) ClassEnvironment.processClassA(cls, null);
-		if (initStep > 1) processClassB(cls);
 		if (initStep > 2) processClassC(cls);
 		if (initStep > 3) processClassD(cls, new CommonClasses(this));
 
@@ -662,10 +697,12 @@ public class ClassFeatureExtractor implements LocalClassEnv {
 	final ClassEnvironment env;
 	private final List<InputFile> inputFiles = new ArrayList<>();
 	private final List<InputFile> cpFiles = new ArrayList<>();
-	private final Map<String, Path> classPathIndex = new HashMap<>();
+	private final Map<String, JarReader.Entry> classPathIndex = new HashMap<>();
 	private final Map<String, ClassInstance> classes = new HashMap<>();
 	private final Map<String, ClassInstance> roClasses = Collections.unmodifiableMap(classes);
 	private final Map<String, ClassInstance> arrayClasses = new HashMap<>();
+	private final Map<NameType, NameIndex<ClassInstance>> classNameIndices = new EnumMap<>(NameType.class);
+	private final Map<NameType, NameIndex<ClassInstance>> arrayClassNameIndices = new EnumMap<>(NameType.class);
 
 	private int initStep;
 }
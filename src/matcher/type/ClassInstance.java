@@ -1,11 +1,13 @@
 package matcher.type;
 
+import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -18,7 +20,9 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
+import matcher.JarReader;
 import matcher.NameType;
 import matcher.SimilarityChecker;
 import matcher.Util;
@@ -46,6 +50,17 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 		assert id.indexOf('[') == -1 : id;
 	}
 
+	/**
+	 * Create a known class (class path) from a header/member stub read without method code.
+	 *
+	 * The code gets read from codeSource once something requests it, see {@link #loadCode()}.
+	 */
+	ClassInstance(String id, URI origin, ClassEnv env, ClassNode asmNode, JarReader.Entry codeSource) {
+		this(id, origin, env, asmNode);
+
+		this.codeSource = codeSource;
+	}
+
 	/**
 	 * Create an array class.
 	 */
@@ -70,11 +85,20 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 		assert asmNode != null;
 	}
 
+	/**
+	 * Create a non-array class read from an archive entry, allowing its code to be released later, see {@link #releaseCode()}.
+	 */
+	ClassInstance(String id, URI origin, ClassEnv env, ClassNode asmNode, boolean nameObfuscated, JarReader.Entry asmNodeSource) {
+		this(id, origin, env, asmNode, nameObfuscated);
+
+		this.asmNodeSource = asmNodeSource;
+	}
+
 	private ClassInstance(String id, URI origin, ClassEnv env, ClassNode asmNode, boolean nameObfuscated, boolean input, ClassInstance elementClass) {
 		if (id.isEmpty()) throw new IllegalArgumentException("empty id");
 		if (env == null) throw new NullPointerException("null env");
 
-		this.id = id;
+		this.id = env.getGlobal().getSymbolPool().intern(id);
 		this.origin = origin;
 		this.env = env;
 		this.asmNodes = asmNode == null ? null : new ClassNode[] { asmNode };
@@ -212,6 +236,18 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 
 	@Override
 	public String getDisplayName(NameType type, boolean full) {
+		int epoch = env.getGlobal().getNameEpoch(type);
+		String ret = displayNames.get(type, full, epoch);
+
+		if (ret == null) {
+			ret = computeDisplayName(type, full);
+			displayNames.put(type, full, epoch, ret);
+		}
+
+		return ret;
+	}
+
+	private String computeDisplayName(NameType type, boolean full) {
 		char lastChar = id.charAt(id.length() - 1);
 		String ret;
 
@@ -289,14 +325,126 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 
 	public ClassNode getMergedAsmNode() {
 		if (asmNodes == null) return null;
+
+		ClassNode cn = loadCode();
+		if (cn != null) return cn;
+
 		if (asmNodes.length == 1) return asmNodes[0];
 
 		return asmNodes[0]; // TODO: actually merge
 	}
 
+	/**
+	 * Whether this class was loaded as a stub whose method code hasn't been read yet.
+	 */
+	public boolean hasUnloadedCode() {
+		return codeSource != null;
+	}
+
+	/**
+	 * Read the method code for a class loaded as a stub, no-op otherwise.
+	 *
+	 * Normally the method asm nodes get replaced with their full counterparts. In low memory mode the asm nodes
+	 * stay code-less and the full class node is only softly referenced, to be re-read once the GC collected it.
+	 * The class' references are not updated either way.
+	 *
+	 * @return the full class node if the code is kept apart from the asm nodes, null otherwise
+	 */
+	ClassNode loadCode() {
+		if (codeSource == null) return null;
+
+		ClassNode ret = getLoadedCode();
+		if (ret != null) return ret;
+
+		synchronized (this) {
+			JarReader.Entry source = codeSource;
+			if (source == null) return null;
+
+			ret = getLoadedCode();
+			if (ret != null) return ret;
+
+			ret = env.getGlobal().readClass(source, false);
+			if (!ret.name.equals(asmNodes[0].name) || ret.methods.size() != asmNodes[0].methods.size()) throw new IllegalStateException("class changed since loading: "+source);
+
+			for (MethodInstance method : methods) {
+				if (method.position < 0 || method.getAsmNodeRaw() == null) continue;
+
+				MethodNode mn = ret.methods.get(method.position);
+				if (!mn.name.equals(method.origName) || !mn.desc.equals(method.getDesc())) throw new IllegalStateException("method changed since loading: "+method);
+			}
+
+			if (env.getGlobal().isLowMemoryMode()) {
+				loadedCode = new SoftReference<>(ret);
+
+				return ret;
+			}
+
+			for (MethodInstance method : methods) {
+				if (method.position < 0 || method.getAsmNodeRaw() == null) continue;
+
+				method.setAsmNode(ret.methods.get(method.position));
+			}
+
+			asmNodes[0] = ret;
+			codeSource = null;
+
+			return null;
+		}
+	}
+
+	private ClassNode getLoadedCode() {
+		SoftReference<ClassNode> ref = loadedCode;
+
+		return ref != null ? ref.get() : null;
+	}
+
+	/**
+	 * Replace the asm nodes of an input class read from a single archive entry with code-less ones.
+	 *
+	 * The code will be read again on demand through {@link #loadCode()}. Only valid after feature extraction.
+	 */
+	void releaseCode() {
+		JarReader.Entry source = asmNodeSource;
+		if (source == null || codeSource != null || asmNodes.length != 1) return;
+
+		synchronized (this) {
+			ClassNode cn = env.getGlobal().readClass(source, true);
+			if (!cn.name.equals(asmNodes[0].name) || cn.methods.size() != asmNodes[0].methods.size()) throw new IllegalStateException("class changed since loading: "+source);
+
+			for (MethodInstance method : methods) {
+				if (method.position < 0 || method.getAsmNodeRaw() == null) continue;
+
+				method.setAsmNode(cn.methods.get(method.position));
+			}
+
+			asmNodes[0] = cn;
+			codeSource = source;
+		}
+	}
+
+	/**
+	 * Convert the reference sets of this class and its members to their compact representation.
+	 */
+	void freezeRefs() {
+		childClasses = CompactIdentitySet.freeze(childClasses);
+		implementers = CompactIdentitySet.freeze(implementers);
+		methodTypeRefs = CompactIdentitySet.freeze(methodTypeRefs);
+		fieldTypeRefs = CompactIdentitySet.freeze(fieldTypeRefs);
+
+		for (MethodInstance method : methods) {
+			method.freezeRefs();
+		}
+
+		for (FieldInstance field : fields) {
+			field.freezeRefs();
+		}
+	}
+
 	void addAsmNode(ClassNode node, URI origin) {
 		if (!input) throw new IllegalStateException("not mergeable");
 
+		asmNodeSource = null;
+
 		asmNodes = Arrays.copyOf(asmNodes, asmNodes.length + 1);
 		asmNodes[asmNodes.length - 1] = node;
 
@@ -332,6 +480,7 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 		if (!matchable && matchedClass != null) return false;
 
 		this.matchable = matchable;
+		env.getGlobal().invalidateSimilarity(this);
 
 		return true;
 	}
@@ -345,7 +494,12 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 		assert cls == null || isMatchable();
 		assert cls == null || cls.getEnv() != env && !cls.getEnv().isShared();
 
+		String[] prevNames = ClassEnvironment.getNames(this);
+		String prevComment = getMappedComment();
+
 		this.matchedClass = cls;
+		env.getGlobal().invalidateChangedNames(this, prevNames, prevComment);
+		env.getGlobal().invalidateSimilarity(this);
 	}
 
 	@Override
@@ -374,6 +528,60 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 		return SimilarityChecker.compare(this, matchedClass);
 	}
 
+	/**
+	 * Get the similarity to the matched class from the similarity cache without computing it.
+	 *
+	 * A class without a cached value yields NaN and gets queued for the next
+	 * {@link ClassEnvironment#updateSimilarities}. After match changes the previous value is served until then.
+	 */
+	@Override
+	public float getCachedSimilarity() {
+		if (matchedClass == null) return 0;
+
+		float ret = cachedSimilarity;
+		if (Float.isNaN(ret)) env.getGlobal().requestSimilarity(this);
+
+		return ret;
+	}
+
+	/**
+	 * Get the similarity to the matched class from the similarity cache, computing it on the calling thread if absent.
+	 */
+	public float getOrComputeCachedSimilarity() {
+		float ret = cachedSimilarity;
+
+		if (Float.isNaN(ret)) {
+			cachedSimilarity = ret = getSimilarity();
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Recompute the cached similarity, classes without a cached value are only processed if requested.
+	 *
+	 * The member similarities are reset and refilled by the class similarity computation, each only computed once.
+	 *
+	 * @return whether the similarity changed or was requested, both warrant a redraw
+	 */
+	boolean updateCachedSimilarity(boolean requested) {
+		for (MethodInstance method : methods) {
+			method.cachedSimilarity = Float.NaN;
+		}
+
+		for (FieldInstance field : fields) {
+			field.cachedSimilarity = Float.NaN;
+		}
+
+		float prev = cachedSimilarity;
+		if (Float.isNaN(prev) && !requested) return false;
+
+		float similarity = getSimilarity();
+		cachedSimilarity = similarity;
+
+		return similarity != prev || requested;
+	}
+
 	@Override
 	public boolean isNameObfuscated() {
 		return nameObfuscated;
@@ -520,13 +728,7 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 
 		MethodInstance ret = null;
 
-		methodLoop: for (MethodInstance method : methods) {
-			String mappedName = method.getName(nameType);
-
-			if (mappedName == null || !name.equals(mappedName)) {
-				continue;
-			}
-
+		methodLoop: for (MethodInstance method : getMethodNameIndex(nameType).get(name)) {
 			if (desc != null) {
 				assert desc.startsWith("(");
 				int idx = 0;
@@ -612,13 +814,7 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 
 		FieldInstance ret = null;
 
-		for (FieldInstance field : fields) {
-			String mappedName = field.getName(nameType);
-
-			if (mappedName == null || !name.equals(mappedName)) {
-				continue;
-			}
-
+		for (FieldInstance field : getFieldNameIndex(nameType).get(name)) {
 			if (desc != null) {
 				String clsMappedName = field.type.getName(nameType);
 				if (clsMappedName == null) continue;
@@ -638,6 +834,30 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 		return ret;
 	}
 
+	private synchronized NameIndex<MethodInstance> getMethodNameIndex(NameType nameType) {
+		if (methodNameIndices == null) methodNameIndices = new EnumMap<>(NameType.class);
+
+		return getMemberNameIndex(methodNameIndices, methods, nameType);
+	}
+
+	private synchronized NameIndex<FieldInstance> getFieldNameIndex(NameType nameType) {
+		if (fieldNameIndices == null) fieldNameIndices = new EnumMap<>(NameType.class);
+
+		return getMemberNameIndex(fieldNameIndices, fields, nameType);
+	}
+
+	private <T extends MemberInstance<T>> NameIndex<T> getMemberNameIndex(Map<NameType, NameIndex<T>> indices, T[] members, NameType nameType) {
+		int epoch = env.getGlobal().getNameEpoch(nameType);
+		NameIndex<T> ret = indices.get(nameType);
+
+		if (ret == null || !ret.isValid(epoch, members.length)) {
+			ret = new NameIndex<>(Arrays.asList(members), nameType, epoch);
+			indices.put(nameType, ret);
+		}
+
+		return ret;
+	}
+
 	public MethodInstance resolveMethod(String name, String desc, boolean toInterface) {
 		// toInterface = false: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-5.html#jvms-5.4.3.3
 		// toInterface = true: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-5.html#jvms-5.4.3.4
@@ -874,6 +1094,7 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 
 	public void setTmpName(String tmpName) {
 		this.tmpName = tmpName;
+		env.getGlobal().invalidateNames(ClassEnvironment.tmpNameTypes);
 	}
 
 	@Override
@@ -893,6 +1114,7 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 
 	public void setUid(int uid) {
 		this.uid = uid;
+		env.getGlobal().invalidateNames(ClassEnvironment.uidNameTypes);
 	}
 
 	@Override
@@ -915,6 +1137,7 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 		assert mappedName == null || !hasOuterName(mappedName);
 
 		this.mappedName = mappedName;
+		env.getGlobal().invalidateNames(ClassEnvironment.mappedNameTypes);
 	}
 
 	@Override
@@ -933,6 +1156,7 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 		if (comment != null && comment.isEmpty()) comment = null;
 
 		this.mappedComment = comment;
+		env.getGlobal().invalidateComments();
 	}
 
 	@Override
@@ -945,6 +1169,7 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 
 		if (this.auxName == null) this.auxName = new String[NameType.AUX_COUNT];
 		this.auxName[index] = name;
+		env.getGlobal().invalidateNames(ClassEnvironment.getAuxNameTypes(index));
 	}
 
 	public boolean isAssignableFrom(ClassInstance c) {
@@ -1061,23 +1286,196 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 	}
 
 	public void accept(ClassVisitor visitor, NameType nameType) {
+		accept(visitor, nameType != NameType.PLAIN ? new AsmRemapper(env, nameType) : null);
+	}
+
+	/**
+	 * Visit the class, remapped through the supplied remapper if not null.
+	 *
+	 * Visiting a class node isn't thread safe (label state), concurrent visits of the same class are serialized
+	 * while different classes can be visited in parallel.
+	 */
+	public void accept(ClassVisitor visitor, AsmRemapper remapper) {
 		ClassNode cn = getMergedAsmNode();
 		if (cn == null) throw new IllegalArgumentException("cls without asm node: "+this);
 
-		synchronized (Util.asmNodeSync) {
-			if (nameType != NameType.PLAIN) {
-				AsmClassRemapper.process(cn, new AsmRemapper(env, nameType), visitor);
-			} else {
+		if (remapper != null) {
+			// remap a private copy to only hold the lock for the plain copy
+			ClassNode copy = new ClassNode();
+
+			synchronized (cn) {
+				cn.accept(copy);
+			}
+
+			AsmClassRemapper.process(copy, remapper, visitor);
+		} else {
+			synchronized (cn) {
 				cn.accept(visitor);
 			}
 		}
 	}
 
+	/**
+	 * Get the class file for the name type, the returned array is shared and must not be modified.
+	 */
 	public byte[] serialize(NameType nameType) {
+		ClassEnvironment global = env.getGlobal();
+		SerializedClassCache cache = global.getSerializedClassCache();
+		boolean recordDependencies = nameType != NameType.PLAIN && nameDependencies == null;
+		long version = 0;
+		byte[] ret;
+
+		if (!recordDependencies) {
+			version = getNameVersion(nameType);
+			ret = cache.get(this, nameType, version);
+			if (ret != null) return ret;
+		}
+
+		int epoch = global.getNameEpoch(nameType);
 		ClassWriter writer = new ClassWriter(0);
-		accept(writer, nameType);
 
-		return writer.toByteArray();
+		if (recordDependencies) { // first remap, collect the names it uses along the way
+			Set<Matchable<?>> dependencies = Util.newIdentityHashSet();
+			accept(writer, new AsmRemapper(env, nameType, null, dependencies));
+			nameDependencies = dependencies.toArray(new Matchable<?>[0]);
+		} else {
+			accept(writer, nameType);
+		}
+
+		ret = writer.toByteArray();
+
+		if (recordDependencies) {
+			if (global.getNameEpoch(nameType) != epoch) return ret; // renamed while remapping, version unknown
+
+			version = getNameVersion(nameType);
+		}
+
+		cache.put(this, nameType, version, ret);
+
+		return ret;
+	}
+
+	/**
+	 * Get a version of the names the class file for the name type gets remapped with, it changes with any of them.
+	 *
+	 * The value is memoized per name epoch of the name type, see {@link ClassEnvironment#getNameEpoch}.
+	 */
+	long getNameVersion(NameType nameType) {
+		if (nameType == NameType.PLAIN) return 0; // plain class files aren't remapped
+
+		int epoch = env.getGlobal().getNameEpoch(nameType);
+		Version[] versions = nameVersions;
+		if (versions == null) nameVersions = versions = new Version[NameType.values().length];
+
+		Version version = versions[nameType.ordinal()];
+		if (version != null && version.epoch == epoch) return version.value;
+
+		long ret = hashBasis;
+
+		for (Matchable<?> dependency : getNameDependencies()) {
+			ret = hash(ret, dependency.getName(nameType));
+		}
+
+		versions[nameType.ordinal()] = new Version(epoch, ret);
+
+		return ret;
+	}
+
+	/**
+	 * Get the classes, members and variables whose names the remapped class file uses, the set doesn't depend on
+	 * the name type. Determined by the first remapping serialization or a dry remap.
+	 */
+	private Matchable<?>[] getNameDependencies() {
+		Matchable<?>[] ret = nameDependencies;
+		if (ret != null) return ret;
+
+		if (asmNodes == null) {
+			ret = new Matchable<?>[0];
+		} else {
+			Set<Matchable<?>> dependencies = Util.newIdentityHashSet();
+			accept(new ClassNode(), new AsmRemapper(env, NameType.MAPPED_PLAIN, null, dependencies));
+			ret = dependencies.toArray(new Matchable<?>[0]);
+		}
+
+		nameDependencies = ret;
+
+		return ret;
+	}
+
+	/**
+	 * Get a version covering all names and comments the decompiled source of the class depends on.
+	 *
+	 * The version spans the top level class and all its nested classes, which get decompiled together. Unlike
+	 * {@link ClassEnvironment#getSourceEpoch} it only changes if a name referenced from this source or one of its
+	 * comments changed. The value is memoized per source epoch of the name type.
+	 */
+	public long getSourceVersion(NameType nameType) {
+		ClassInstance top = this;
+
+		while (top.outerClass != null) {
+			top = top.outerClass;
+		}
+
+		long epoch = env.getGlobal().getSourceEpoch(nameType);
+		Version[] versions = top.sourceVersions;
+		if (versions == null) top.sourceVersions = versions = new Version[NameType.values().length];
+
+		Version version = versions[nameType.ordinal()];
+		if (version != null && version.epoch == epoch) return version.value;
+
+		long ret = top.hashSource(hashBasis, nameType);
+		versions[nameType.ordinal()] = new Version(epoch, ret);
+
+		return ret;
+	}
+
+	private long hashSource(long hash, NameType nameType) {
+		long nameVersion = getNameVersion(nameType);
+		hash = (hash ^ nameVersion) * hashPrime;
+		hash = (hash ^ nameVersion >>> 32) * hashPrime;
+		hash = hash(hash, getMappedComment());
+
+		for (MethodInstance method : methods) {
+			hash = hash(hash, method.getMappedComment());
+
+			for (MethodVarInstance arg : method.getArgs()) {
+				hash = hash(hash, arg.getMappedComment());
+			}
+
+			for (MethodVarInstance var : method.getVars()) {
+				hash = hash(hash, var.getMappedComment());
+			}
+		}
+
+		for (FieldInstance field : fields) {
+			hash = hash(hash, field.getMappedComment());
+		}
+
+		for (ClassInstance inner : innerClasses) {
+			hash = inner.hashSource(hash, nameType);
+		}
+
+		return hash;
+	}
+
+	private static long hash(long hash, String str) { // 64 bit FNV-1a, null and separator as non-char values
+		if (str == null) return (hash ^ 0x10000) * hashPrime;
+
+		for (int i = 0; i < str.length(); i++) {
+			hash = (hash ^ str.charAt(i)) * hashPrime;
+		}
+
+		return (hash ^ 0x10001) * hashPrime;
+	}
+
+	private static final class Version {
+		Version(long epoch, long value) {
+			this.epoch = epoch;
+			this.value = value;
+		}
+
+		final long epoch;
+		final long value;
 	}
 
 	@Override
@@ -1159,12 +1557,20 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 	private static final ClassInstance[] noArrays = new ClassInstance[0];
 	private static final MethodInstance[] noMethods = new MethodInstance[0];
 	private static final FieldInstance[] noFields = new FieldInstance[0];
+	private static final long hashBasis = 0xcbf29ce484222325L;
+	private static final long hashPrime = 0x100000001b3L;
 
 	final String id;
 	private final URI origin;
 	final ClassEnv env;
 	private ClassNode[] asmNodes;
 	private URI[] asmNodeOrigins;
+	private JarReader.Entry asmNodeSource;
+	private volatile JarReader.Entry codeSource;
+	private volatile SoftReference<ClassNode> loadedCode;
+	private volatile Matchable<?>[] nameDependencies;
+	private Version[] nameVersions; // lazily created, entries are immutable
+	private Version[] sourceVersions;
 	final boolean nameObfuscated;
 	private final boolean input;
 	final ClassInstance elementClass; // 0-dim class TODO: improve handling of array classes (references etc.)
@@ -1174,6 +1580,8 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 	FieldInstance[] fields = noFields;
 	final Map<String, MethodInstance> methodIdx = new HashMap<>();
 	final Map<String, FieldInstance> fieldIdx = new HashMap<>();
+	private Map<NameType, NameIndex<MethodInstance>> methodNameIndices; // lazily created
+	private Map<NameType, NameIndex<FieldInstance>> fieldNameIndices;
 
 	private ClassInstance[] arrays = noArrays;
 
@@ -1181,15 +1589,16 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 	final Set<ClassInstance> innerClasses = Util.newIdentityHashSet();
 
 	ClassInstance superClass;
-	final Set<ClassInstance> childClasses = Util.newIdentityHashSet();
+	Set<ClassInstance> childClasses = Util.newIdentityHashSet();
 	final Set<ClassInstance> interfaces = Util.newIdentityHashSet();
-	final Set<ClassInstance> implementers = Util.newIdentityHashSet();
+	Set<ClassInstance> implementers = Util.newIdentityHashSet();
 
-	final Set<MethodInstance> methodTypeRefs = Util.newIdentityHashSet();
-	final Set<FieldInstance> fieldTypeRefs = Util.newIdentityHashSet();
+	Set<MethodInstance> methodTypeRefs = Util.newIdentityHashSet();
+	Set<FieldInstance> fieldTypeRefs = Util.newIdentityHashSet();
 
 	final Set<String> strings = new HashSet<>();
 
+	private final DisplayNameCache displayNames = new DisplayNameCache();
 	private String tmpName;
 	private int uid = -1;
 
@@ -1200,4 +1609,5 @@ public final class ClassInstance implements Matchable<ClassInstance> {
 
 	private boolean matchable = true;
 	private ClassInstance matchedClass;
+	private volatile float cachedSimilarity = Float.NaN;
 }
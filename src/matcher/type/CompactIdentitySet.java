@@ -0,0 +1,145 @@
+package matcher.type;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Array backed identity set for reference data that doesn't change anymore after feature extraction.
+ *
+ * The elements are stored in an exact-size array sorted by identity hash code, contains checks on larger
+ * sets binary search a parallel hash array. The rare late additions (e.g. class path classes created on
+ * demand) replace the arrays, removal isn't supported.
+ */
+final class CompactIdentitySet<E> extends AbstractSet<E> {
+	/**
+	 * Create a compact copy of the supplied identity set.
+	 */
+	static <E> Set<E> freeze(Set<E> set) {
+		if (set instanceof CompactIdentitySet) return set;
+
+		return new CompactIdentitySet<>(set.toArray());
+	}
+
+	private CompactIdentitySet(Object[] elements) {
+		this.data = Data.create(elements);
+	}
+
+	@Override
+	public int size() {
+		return data.elements.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return data.elements.length == 0;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return data.indexOf(o) >= 0;
+	}
+
+	@Override
+	public synchronized boolean add(E e) {
+		Data data = this.data;
+		if (data.indexOf(e) >= 0) return false;
+
+		Object[] elements = Arrays.copyOf(data.elements, data.elements.length + 1);
+		elements[elements.length - 1] = e;
+		this.data = Data.create(elements);
+
+		return true;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		Object[] elements = data.elements;
+
+		return new Iterator<E>() {
+			@Override
+			public boolean hasNext() {
+				return idx < elements.length;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public E next() {
+				if (idx >= elements.length) throw new NoSuchElementException();
+
+				return (E) elements[idx++];
+			}
+
+			private int idx;
+		};
+	}
+
+	@Override
+	public Object[] toArray() {
+		return data.elements.clone();
+	}
+
+	private static final class Data {
+		static Data create(Object[] elements) {
+			if (elements.length == 0) return empty;
+
+			long[] keys = new long[elements.length]; // identity hash << 32 | index
+
+			for (int i = 0; i < elements.length; i++) {
+				keys[i] = (long) System.identityHashCode(elements[i]) << 32 | i;
+			}
+
+			Arrays.sort(keys);
+
+			Object[] sorted = new Object[elements.length];
+			int[] hashes = elements.length > linearScanLimit ? new int[elements.length] : null;
+
+			for (int i = 0; i < keys.length; i++) {
+				sorted[i] = elements[(int) keys[i]];
+				if (hashes != null) hashes[i] = (int) (keys[i] >>> 32);
+			}
+
+			return new Data(sorted, hashes);
+		}
+
+		private Data(Object[] elements, int[] hashes) {
+			this.elements = elements;
+			this.hashes = hashes;
+		}
+
+		int indexOf(Object o) {
+			if (hashes == null) {
+				for (int i = 0; i < elements.length; i++) {
+					if (elements[i] == o) return i;
+				}
+
+				return -1;
+			}
+
+			int hash = System.identityHashCode(o);
+			int pos = Arrays.binarySearch(hashes, hash);
+			if (pos < 0) return -1;
+
+			// identity hashes may collide, check all neighbors with the same hash
+			for (int i = pos; i >= 0 && hashes[i] == hash; i--) {
+				if (elements[i] == o) return i;
+			}
+
+			for (int i = pos + 1; i < elements.length && hashes[i] == hash; i++) {
+				if (elements[i] == o) return i;
+			}
+
+			return -1;
+		}
+
+		private static final int linearScanLimit = 8;
+		private static final Data empty = new Data(new Object[0], null);
+
+		final Object[] elements;
+		final int[] hashes;
+	}
+
+	private volatile Data data;
+}
@@ -0,0 +1,49 @@
+package matcher.type;
+
+import matcher.NameType;
+
+/**
+ * Per-matchable cache of display names for each name type and full/short form.
+ *
+ * Entries are tagged with the name epoch of their name type, see {@link ClassEnvironment#getNameEpoch}, any
+ * mapping, tmp name or match change affecting the name type thus invalidates them.
+ */
+final class DisplayNameCache {
+	String get(NameType type, boolean full, int epoch) {
+		Entry[] entries = this.entries;
+		if (entries == null) return null;
+
+		Entry entry = entries[getIndex(type, full)];
+
+		return entry != null && entry.epoch == epoch ? entry.value : null;
+	}
+
+	/**
+	 * Store a display name, the epoch has to be obtained before computing the name.
+	 */
+	void put(NameType type, boolean full, int epoch, String value) {
+		Entry[] entries = this.entries;
+
+		if (entries == null) {
+			this.entries = entries = new Entry[NameType.values().length * 2];
+		}
+
+		entries[getIndex(type, full)] = new Entry(value, epoch);
+	}
+
+	private static int getIndex(NameType type, boolean full) {
+		return type.ordinal() * 2 + (full ? 1 : 0);
+	}
+
+	private static final class Entry {
+		Entry(String value, int epoch) {
+			this.value = value;
+			this.epoch = epoch;
+		}
+
+		final String value;
+		final int epoch;
+	}
+
+	private Entry[] entries; // racy but benign, entries are immutable and recomputed if missing
+}
@@ -47,10 +47,10 @@ public final class FieldInstance extends MemberInstance<FieldInstance> {
 	}
 
 	@Override
-	public String getDisplayName(NameType type, boolean full) {
+	protected String computeDisplayName(NameType type, boolean full) {
 		StringBuilder ret = new StringBuilder(64);
 
-		ret.append(super.getDisplayName(type, full));
+		ret.append(super.computeDisplayName(type, full));
 		ret.append(' ');
 		ret.append(this.type.getDisplayName(type, full));
 
@@ -116,6 +116,11 @@ public final class FieldInstance extends MemberInstance<FieldInstance> {
 		return writeRefs;
 	}
 
+	void freezeRefs() {
+		readRefs = CompactIdentitySet.freeze(readRefs);
+		writeRefs = CompactIdentitySet.freeze(writeRefs);
+	}
+
 	@Override
 	public boolean canBeRecordComponent() {
 		return cls.isRecord() && !isStatic() && !isProtected() && !isPublic() && isFinal(); // jls requires private, but proguard(?) uses package-private too
@@ -175,6 +180,6 @@ public final class FieldInstance extends MemberInstance<FieldInstance> {
 	private final FieldSignature signature;
 	List<AbstractInsnNode> initializer;
 
-	final Set<MethodInstance> readRefs = Util.newIdentityHashSet();
-	final Set<MethodInstance> writeRefs = Util.newIdentityHashSet();
+	Set<MethodInstance> readRefs = Util.newIdentityHashSet();
+	Set<MethodInstance> writeRefs = Util.newIdentityHashSet();
 }
@@ -0,0 +1,186 @@
+package matcher.type;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import matcher.config.Config;
+import matcher.type.InputFile.HashType;
+
+/**
+ * File hash cache keyed by absolute path, size and modification time.
+ *
+ * Entries for files on the default file system are persisted to a sidecar file in the user cache dir,
+ * so re-opening a project doesn't have to re-hash unchanged inputs and class path archives.
+ */
+final class HashCache {
+	static byte[] get(Path path, HashType type) throws IOException {
+		BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		boolean persistent = path.getFileSystem() == FileSystems.getDefault();
+		Key key = new Key(persistent ? path.toAbsolutePath().normalize().toString() : path.toUri().toString(),
+				attrs.size(), attrs.lastModifiedTime().toMillis(), type, persistent);
+
+		ensureLoaded();
+
+		byte[] ret = entries.get(key);
+
+		if (ret == null) {
+			ret = type.hash(path);
+			if (entries.put(key, ret) == null && persistent) dirty = true;
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Hash all supplied files in parallel, populating the cache for subsequent get calls.
+	 */
+	static void hashAll(Collection<Path> paths, HashType type) {
+		paths.parallelStream().distinct().forEach(path -> {
+			try {
+				get(path, type);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	private static void ensureLoaded() {
+		if (loaded) return;
+
+		synchronized (HashCache.class) {
+			if (loaded) return;
+
+			try (BufferedReader reader = Files.newBufferedReader(getCacheFile())) {
+				String line = reader.readLine();
+
+				if (header.equals(line)) {
+					while ((line = reader.readLine()) != null) {
+						// <hashType>\t<size>\t<mtime>\t<hash>\t<path>
+						String[] parts = line.split("\t", 5);
+						if (parts.length != 5) continue;
+
+						try {
+							Key key = new Key(parts[4], Long.parseLong(parts[1]), Long.parseLong(parts[2]), HashType.valueOf(parts[0]), true);
+							entries.putIfAbsent(key, Base64.getDecoder().decode(parts[3]));
+						} catch (IllegalArgumentException e) {
+							// malformed entry, skip
+						}
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// no cache yet
+			} catch (IOException e) {
+				System.err.println("can't read hash cache: "+e);
+			}
+
+			loaded = true;
+		}
+	}
+
+	/**
+	 * Write the persistent entries back if anything changed, dropping entries for files that were removed or modified.
+	 */
+	static synchronized void save() {
+		if (!dirty) return;
+
+		for (Iterator<Key> it = entries.keySet().iterator(); it.hasNext(); ) {
+			Key key = it.next();
+			if (!key.persistent) continue;
+
+			try {
+				BasicFileAttributes attrs = Files.readAttributes(Path.of(key.path), BasicFileAttributes.class);
+				if (attrs.size() == key.size && attrs.lastModifiedTime().toMillis() == key.mtime) continue;
+			} catch (IOException e) {
+				// file is gone
+			}
+
+			it.remove();
+		}
+
+		Path file = getCacheFile();
+		Path tmpFile = file.resolveSibling(file.getFileName().toString()+".tmp");
+
+		try {
+			Files.createDirectories(file.getParent());
+
+			try (Writer writer = Files.newBufferedWriter(tmpFile)) {
+				writer.write(header);
+				writer.write('\n');
+
+				for (Map.Entry<Key, byte[]> entry : entries.entrySet()) {
+					Key key = entry.getKey();
+					if (!key.persistent) continue;
+
+					writer.write(key.type.name());
+					writer.write('\t');
+					writer.write(Long.toString(key.size));
+					writer.write('\t');
+					writer.write(Long.toString(key.mtime));
+					writer.write('\t');
+					writer.write(Base64.getEncoder().encodeToString(entry.getValue()));
+					writer.write('\t');
+					writer.write(key.path);
+					writer.write('\n');
+				}
+			}
+
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+			dirty = false;
+		} catch (IOException e) {
+			System.err.println("can't write hash cache: "+e);
+		}
+	}
+
+	private static Path getCacheFile() {
+		return Config.getCacheDir().resolve("file-hashes.txt");
+	}
+
+	private static final class Key {
+		Key(String path, long size, long mtime, HashType type, boolean persistent) {
+			this.path = path;
+			this.size = size;
+			this.mtime = mtime;
+			this.type = type;
+			this.persistent = persistent;
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode() ^ Long.hashCode(size) ^ Long.hashCode(mtime) ^ type.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+
+			Key o = (Key) obj;
+
+			return path.equals(o.path) && size == o.size && mtime == o.mtime && type == o.type;
+		}
+
+		final String path;
+		final long size;
+		final long mtime;
+		final HashType type;
+		final boolean persistent;
+	}
+
+	private static final String header = "matcher file hash cache v1";
+
+	private static final Map<Key, byte[]> entries = new ConcurrentHashMap<>();
+	private static volatile boolean loaded;
+	private static volatile boolean dirty;
+}
@@ -0,0 +1,101 @@
+package matcher.type;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lazily built index over all regular files within a set of input directories.
+ *
+ * The directories are walked only once, candidates for an input file are then narrowed down by
+ * sanitized file name and size before the (cached) hash comparison in InputFile.equals(Path) runs.
+ */
+public final class InputDirIndex {
+	public InputDirIndex(Collection<Path> inputDirs) {
+		this.inputDirs = new ArrayList<>(inputDirs);
+	}
+
+	public List<Path> getInputDirs() {
+		return Collections.unmodifiableList(inputDirs);
+	}
+
+	public Path find(InputFile inputFile) throws IOException {
+		if (inputFile.path != null) {
+			for (IndexedFile file : getFiles(InputFile.getSanitizedFileName(inputFile.path))) {
+				if (inputFile.equals(file.path)) return file.path;
+			}
+
+			return null;
+		}
+
+		List<IndexedFile> candidates = inputFile.fileName != null ? getFiles(inputFile.fileName) : getAllFiles();
+
+		for (IndexedFile file : candidates) {
+			if (inputFile.size >= 0 && file.size != inputFile.size) continue;
+
+			if (inputFile.equals(file.path)) return file.path;
+		}
+
+		return null;
+	}
+
+	private List<IndexedFile> getFiles(String fileName) throws IOException {
+		ensureIndexed();
+
+		return filesByName.getOrDefault(fileName, Collections.emptyList());
+	}
+
+	private List<IndexedFile> getAllFiles() throws IOException {
+		ensureIndexed();
+
+		return allFiles;
+	}
+
+	private void ensureIndexed() throws IOException {
+		if (allFiles != null) return;
+
+		List<IndexedFile> files = new ArrayList<>();
+
+		for (Path inputDir : inputDirs) {
+			Files.walkFileTree(inputDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if (attrs.isRegularFile()) files.add(new IndexedFile(file, attrs.size()));
+
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+
+		for (IndexedFile file : files) {
+			filesByName.computeIfAbsent(InputFile.getSanitizedFileName(file.path), ignore -> new ArrayList<>()).add(file);
+		}
+
+		allFiles = files;
+	}
+
+	private static final class IndexedFile {
+		IndexedFile(Path path, long size) {
+			this.path = path;
+			this.size = size;
+		}
+
+		final Path path;
+		final long size;
+	}
+
+	private final List<Path> inputDirs;
+	private final Map<String, List<IndexedFile>> filesByName = new HashMap<>();
+	private List<IndexedFile> allFiles;
+}
@@ -3,12 +3,16 @@ package matcher.type;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.Map;
 
@@ -18,7 +22,7 @@ public class InputFile {
 			this.path = path;
 			this.fileName = getSanitizedFileName(path);
 			this.size = Files.size(path);
-			this.hash = HashType.SHA256.hash(path);
+			this.hash = HashType.SHA256.hashCached(path);
 			this.hashType = HashType.SHA256;
 			this.pathHint = path;
 		} catch (IOException e) {
@@ -66,7 +70,7 @@ public class InputFile {
 			if (fileName != null && !getSanitizedFileName(path).equals(fileName)) return false;
 			if (size != -1 && Files.size(path) != size) return false;
 
-			return hash == null || Arrays.equals(hash, hashType.hash(path));
+			return hash == null || Arrays.equals(hash, hashType.hashCached(path));
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -107,10 +111,24 @@ public class InputFile {
 		}
 	}
 
-	private static String getSanitizedFileName(Path path) {
+	static String getSanitizedFileName(Path path) {
 		return path.getFileName().toString().replace('\n', ' ');
 	}
 
+	/**
+	 * Hash all supplied files in parallel and cache the results, speeding up subsequent InputFile creation.
+	 */
+	public static void precomputeHashes(Collection<Path> paths) {
+		HashCache.hashAll(paths, HashType.SHA256);
+	}
+
+	/**
+	 * Persist the hashes computed so far to the user cache dir.
+	 */
+	public static void saveHashCache() {
+		HashCache.save();
+	}
+
 	public enum HashType {
 		SHA1("SHA-1"),
 		SHA256("SHA-256");
@@ -134,24 +152,46 @@ public class InputFile {
 			ByteBuffer buffer = tlData.buffer;
 			buffer.clear();
 
-			try (SeekableByteChannel channel = Files.newByteChannel(path)) {
-				while (channel.read(buffer) != -1) {
-					buffer.flip();
-					digest.update(buffer);
-					buffer.clear();
+			if (path.getFileSystem() == FileSystems.getDefault()) {
+				// positional reads into the direct buffer, no mapping outlives the channel and locks or faults on the file
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+					long pos = 0;
+					int read;
+
+					while ((read = channel.read(buffer, pos)) != -1) {
+						pos += read;
+						buffer.flip();
+						digest.update(buffer);
+						buffer.clear();
+					}
+				}
+			} else {
+				try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+					while (channel.read(buffer) != -1) {
+						buffer.flip();
+						digest.update(buffer);
+						buffer.clear();
+					}
 				}
 			}
 
 			return digest.digest();
 		}
 
+		/**
+		 * Hash the file, reusing a previous result if the file's size and modification time didn't change.
+		 */
+		public byte[] hashCached(Path path) throws IOException {
+			return HashCache.get(path, this);
+		}
+
 		private static class TlData {
 			TlData() {
 				for (HashType type : HashType.values()) {
 					digests.put(type, type.createDigest());
 				}
 
-				buffer = ByteBuffer.allocate(256 * 1024);
+				buffer = ByteBuffer.allocateDirect(256 * 1024);
 			}
 
 			final Map<HashType, MessageDigest> digests = new EnumMap<>(HashType.class);
@@ -0,0 +1,273 @@
+package matcher.type;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+import matcher.config.Config;
+
+/**
+ * Persistent index of code-less JDK class files for the running Java runtime.
+ *
+ * The index is generated once per runtime version in the background by stripping all classes in the jrt
+ * image down to their headers, members, signatures and annotations. Later sessions memory map it and
+ * resolve shared JDK classes from there instead of going through the module image file system.
+ */
+final class JdkClassIndex {
+	/**
+	 * Look up the code-less class file for the JDK class with the supplied internal name.
+	 *
+	 * Returns null if the class isn't part of the JDK or the index isn't available yet, the latter
+	 * schedules its generation.
+	 */
+	static Entry find(String name) {
+		Map<String, Entry> entries = getEntries();
+
+		return entries != null ? entries.get(name) : null;
+	}
+
+	private static Map<String, Entry> getEntries() {
+		if (loaded) return entries;
+
+		synchronized (JdkClassIndex.class) {
+			if (loaded) return entries;
+
+			try {
+				entries = load(getIndexFile());
+			} catch (NoSuchFileException e) {
+				startGeneration();
+			} catch (IOException | IndexOutOfBoundsException e) {
+				System.err.println("can't read jdk class index: "+e);
+				startGeneration();
+			}
+
+			loaded = true;
+		}
+
+		return entries;
+	}
+
+	private static Map<String, Entry> load(Path file) throws IOException {
+		MappedByteBuffer buffer;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < 8 || size > Integer.MAX_VALUE) throw new IOException("invalid size");
+
+			buffer = channel.map(MapMode.READ_ONLY, 0, size);
+		}
+
+		if (buffer.getInt(0) != magic || !getString(buffer, 4).equals(getRuntimeId())) throw new IOException("stale index");
+
+		// table: <count> (<name> <module idx> <offset> <length>)*, located through the trailing offset
+		int pos = buffer.getInt(buffer.limit() - 4);
+		int moduleCount = buffer.getInt(pos);
+		pos += 4;
+
+		URI[] modules = new URI[moduleCount];
+
+		for (int i = 0; i < moduleCount; i++) {
+			String module = getString(buffer, pos);
+			pos += 2 + (buffer.getShort(pos) & 0xffff);
+			modules[i] = URI.create("jrt:/"+module);
+		}
+
+		int count = buffer.getInt(pos);
+		pos += 4;
+
+		Map<String, Entry> ret = new HashMap<>(count * 4 / 3 + 1);
+
+		for (int i = 0; i < count; i++) {
+			String name = getString(buffer, pos);
+			pos += 2 + (buffer.getShort(pos) & 0xffff);
+			URI module = modules[buffer.getShort(pos) & 0xffff];
+			int offset = buffer.getInt(pos + 2);
+			int length = buffer.getInt(pos + 6);
+			pos += 10;
+
+			ret.put(name, new Entry(module, buffer, offset, length));
+		}
+
+		return ret;
+	}
+
+	private static String getString(ByteBuffer buffer, int pos) {
+		byte[] bytes = new byte[buffer.getShort(pos) & 0xffff];
+		buffer.get(pos + 2, bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void startGeneration() {
+		Thread thread = new Thread(() -> {
+			long startTime = System.nanoTime();
+
+			try {
+				generate(getIndexFile());
+				System.out.printf("Generated jdk class index in %.1f ms.%n", (System.nanoTime() - startTime) * 1e-6);
+			} catch (IOException | RuntimeException e) {
+				System.err.println("can't generate jdk class index: "+e);
+			}
+		}, "jdk class index generator");
+
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	private static void generate(Path file) throws IOException {
+		FileSystem fs = FileSystems.getFileSystem(URI.create("jrt:/"));
+		List<String> modules = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		List<int[]> locations = new ArrayList<>(); // module idx, offset, length
+
+		Files.createDirectories(file.getParent());
+		Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+		try {
+			try (OutputStream os = Files.newOutputStream(tmpFile);
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+				out.writeInt(magic);
+				writeString(out, getRuntimeId());
+
+				List<Path> moduleDirs;
+
+				try (Stream<Path> stream = Files.list(fs.getPath("/modules"))) {
+					moduleDirs = stream.sorted().collect(Collectors.toList());
+				}
+
+				for (Path moduleDir : moduleDirs) {
+					List<Path> files;
+
+					try (Stream<Path> stream = Files.walk(moduleDir)) {
+						files = stream.filter(path -> path.toString().endsWith(".class") && !path.getFileName().toString().equals("module-info.class"))
+								.sorted()
+								.collect(Collectors.toList());
+					}
+
+					if (files.isEmpty()) continue;
+
+					// strip the classes in parallel, write them in a stable order
+					List<byte[]> stubs = files.parallelStream().map(JdkClassIndex::createStub).collect(Collectors.toList());
+					int moduleIdx = modules.size();
+					modules.add(moduleDir.getFileName().toString());
+
+					for (int i = 0; i < files.size(); i++) {
+						String name = moduleDir.relativize(files.get(i)).toString();
+						byte[] stub = stubs.get(i);
+
+						names.add(name.substring(0, name.length() - ".class".length()));
+						locations.add(new int[] { moduleIdx, out.size(), stub.length });
+						out.write(stub);
+					}
+				}
+
+				int tableOffset = out.size();
+				if (tableOffset < 0) throw new IOException("index too large");
+
+				out.writeInt(modules.size());
+
+				for (String module : modules) {
+					writeString(out, module);
+				}
+
+				out.writeInt(names.size());
+
+				for (int i = 0; i < names.size(); i++) {
+					int[] location = locations.get(i);
+
+					writeString(out, names.get(i));
+					out.writeShort(location[0]);
+					out.writeInt(location[1]);
+					out.writeInt(location[2]);
+				}
+
+				out.writeInt(tableOffset);
+			}
+
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+
+	private static byte[] createStub(Path file) {
+		try {
+			ClassReader reader = new ClassReader(Files.readAllBytes(file));
+			ClassWriter writer = new ClassWriter(0);
+			reader.accept(writer, ClassReader.SKIP_CODE);
+
+			return writer.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	private static Path getIndexFile() {
+		return Config.getCacheDir().resolve("jdk-classes-"+Integer.toHexString(getRuntimeId().hashCode())+".idx");
+	}
+
+	private static String getRuntimeId() {
+		return Runtime.version()+" "+System.getProperty("java.vendor")+" "+System.getProperty("java.home");
+	}
+
+	static final class Entry {
+		Entry(URI module, ByteBuffer buffer, int offset, int length) {
+			this.module = module;
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		URI getModuleUri() {
+			return module;
+		}
+
+		byte[] read() {
+			byte[] ret = new byte[length];
+			buffer.get(offset, ret);
+
+			return ret;
+		}
+
+		private final URI module;
+		private final ByteBuffer buffer;
+		private final int offset;
+		private final int length;
+	}
+
+	private static final int magic = 0x4a434931; // JCI1
+
+	private static Map<String, Entry> entries;
+	private static volatile boolean loaded;
+}
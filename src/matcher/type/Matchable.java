@@ -37,5 +37,13 @@ public interface Matchable<T extends Matchable<T>> {
 	T getMatch();
 	boolean isFullyMatched(boolean recursive);
 	float getSimilarity();
+
+	/**
+	 * Get the similarity to the match, possibly from a cache that lags behind the latest match changes.
+	 */
+	default float getCachedSimilarity() {
+		return getSimilarity();
+	}
+
 	boolean isNameObfuscated();
 }
\ No newline at end of file
@@ -13,9 +13,11 @@ import matcher.Util;
 public abstract class MemberInstance<T extends MemberInstance<T>> implements Matchable<T> {
 	@SuppressWarnings("unchecked")
 	protected MemberInstance(ClassInstance cls, String id, String origName, boolean nameObfuscated, int position, boolean isStatic) {
+		SymbolPool symbolPool = cls.getEnv().getGlobal().getSymbolPool();
+
 		this.cls = cls;
-		this.id = id;
-		this.origName = origName;
+		this.id = symbolPool.intern(id);
+		this.origName = symbolPool.intern(origName);
 		this.nameObfuscatedLocal = nameObfuscated;
 		this.position = position;
 		this.isStatic = isStatic;
@@ -76,7 +78,19 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 	}
 
 	@Override
-	public String getDisplayName(NameType type, boolean full) {
+	public final String getDisplayName(NameType type, boolean full) {
+		int epoch = cls.getEnv().getGlobal().getNameEpoch(type);
+		String ret = displayNames.get(type, full, epoch);
+
+		if (ret == null) {
+			ret = computeDisplayName(type, full);
+			displayNames.put(type, full, epoch, ret);
+		}
+
+		return ret;
+	}
+
+	protected String computeDisplayName(NameType type, boolean full) {
 		String name = getName(type);
 
 		if (full) {
@@ -226,6 +240,7 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 
 	public void setTmpName(String tmpName) {
 		hierarchyData.tmpName = tmpName;
+		cls.getEnv().getGlobal().invalidateNames(ClassEnvironment.tmpNameTypes);
 	}
 
 	@Override
@@ -247,6 +262,7 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 
 	public void setUid(int uid) {
 		hierarchyData.matchedHierarchy.uid = uid;
+		cls.getEnv().getGlobal().invalidateNames(ClassEnvironment.uidNameTypes);
 	}
 
 	protected abstract String getUidString();
@@ -270,6 +286,7 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 
 	public void setMappedName(String mappedName) {
 		hierarchyData.mappedName = mappedName;
+		cls.getEnv().getGlobal().invalidateNames(ClassEnvironment.mappedNameTypes);
 	}
 
 	@Override
@@ -288,6 +305,7 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 		if (comment != null && comment.isEmpty()) comment = null;
 
 		this.mappedComment = comment;
+		cls.getEnv().getGlobal().invalidateComments();
 	}
 
 	@Override
@@ -313,6 +331,7 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 	public void setAuxName(int index, String name) {
 		if (hierarchyData.auxName == null) hierarchyData.auxName = new String[NameType.AUX_COUNT];
 		hierarchyData.auxName[index] = name;
+		cls.getEnv().getGlobal().invalidateNames(ClassEnvironment.getAuxNameTypes(index));
 	}
 
 	@Override
@@ -328,6 +347,7 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 		if (!matchable && hierarchyData.matchedHierarchy != null) return false;
 
 		hierarchyData.matchable = matchable;
+		cls.getEnv().getGlobal().invalidateSimilarity(this);
 
 		return true;
 	}
@@ -341,8 +361,13 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 		assert match == null || isMatchable();
 		assert match == null || cls == match.cls.getMatch();
 
+		String[] prevNames = ClassEnvironment.getNames(this);
+		String prevComment = getMappedComment();
+
 		this.matchedInstance = match;
 		this.hierarchyData.matchedHierarchy = match != null ? match.hierarchyData : null;
+		cls.getEnv().getGlobal().invalidateChangedNames(this, prevNames, prevComment);
+		cls.getEnv().getGlobal().invalidateSimilarity(this);
 	}
 
 	@Override
@@ -352,6 +377,35 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 		return SimilarityChecker.compare(this, matchedInstance);
 	}
 
+	/**
+	 * Get the similarity to the matched member from the similarity cache without computing it.
+	 *
+	 * The member similarities get computed along with their class' similarity. A matched member without a cached
+	 * value yields NaN and queues its class for the next {@link ClassEnvironment#updateSimilarities}.
+	 */
+	@Override
+	public float getCachedSimilarity() {
+		if (matchedInstance == null) return 0;
+
+		float ret = cachedSimilarity;
+		if (Float.isNaN(ret)) cls.getEnv().getGlobal().requestSimilarity(cls);
+
+		return ret;
+	}
+
+	/**
+	 * Get the similarity to the matched member from the similarity cache, computing it on the calling thread if absent.
+	 */
+	public float getOrComputeCachedSimilarity() {
+		float ret = cachedSimilarity;
+
+		if (Float.isNaN(ret)) {
+			cachedSimilarity = ret = getSimilarity();
+		}
+
+		return ret;
+	}
+
 	@Override
 	public String toString() {
 		return getDisplayName(NameType.PLAIN, true);
@@ -369,8 +423,10 @@ public abstract class MemberInstance<T extends MemberInstance<T>> implements Mat
 	private Set<T> parents = Collections.emptySet();
 	private Set<T> children = Collections.emptySet();
 	MemberHierarchyData<T> hierarchyData;
+	private final DisplayNameCache displayNames = new DisplayNameCache();
 
 	String mappedComment;
 
 	T matchedInstance;
+	volatile float cachedSimilarity = Float.NaN;
 }
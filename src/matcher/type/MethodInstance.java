@@ -9,6 +9,7 @@ import java.util.Set;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.LocalVariableNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -184,9 +185,9 @@ public final class MethodInstance extends MemberInstance<MethodInstance> {
 	}
 
 	@Override
-	public String getDisplayName(NameType type, boolean full) {
+	protected String computeDisplayName(NameType type, boolean full) {
 		StringBuilder ret = new StringBuilder(64);
-		ret.append(super.getDisplayName(type, full));
+		ret.append(super.computeDisplayName(type, full));
 		ret.append('(');
 		boolean first = true;
 
@@ -254,9 +255,23 @@ public final class MethodInstance extends MemberInstance<MethodInstance> {
 	}
 
 	public MethodNode getAsmNode() {
+		ClassNode cn = cls.loadCode();
+		if (cn != null && asmNode != null) return cn.methods.get(position);
+
+		return asmNode;
+	}
+
+	/**
+	 * Get the asm node without triggering loading skipped method code.
+	 */
+	MethodNode getAsmNodeRaw() {
 		return asmNode;
 	}
 
+	void setAsmNode(MethodNode asmNode) {
+		this.asmNode = asmNode;
+	}
+
 	public MethodVarInstance getArg(int index) {
 		if (index < 0 || index >= args.length) throw new IllegalArgumentException("invalid arg index: "+index);
 
@@ -406,6 +421,14 @@ public final class MethodInstance extends MemberInstance<MethodInstance> {
 		return classRefs;
 	}
 
+	void freezeRefs() {
+		refsIn = CompactIdentitySet.freeze(refsIn);
+		refsOut = CompactIdentitySet.freeze(refsOut);
+		fieldReadRefs = CompactIdentitySet.freeze(fieldReadRefs);
+		fieldWriteRefs = CompactIdentitySet.freeze(fieldWriteRefs);
+		classRefs = CompactIdentitySet.freeze(classRefs);
+	}
+
 	@Override
 	public String getUidString() {
 		int uid = getUid();
@@ -488,13 +511,13 @@ public final class MethodInstance extends MemberInstance<MethodInstance> {
 	final ClassInstance retType;
 	MethodVarInstance[] vars;
 	final MethodSignature signature;
-	private final MethodNode asmNode;
+	private MethodNode asmNode;
 
 	MethodType type = MethodType.UNKNOWN;
 
-	final Set<MethodInstance> refsIn = Util.newIdentityHashSet();
-	final Set<MethodInstance> refsOut = Util.newIdentityHashSet();
-	final Set<FieldInstance> fieldReadRefs = Util.newIdentityHashSet();
-	final Set<FieldInstance> fieldWriteRefs = Util.newIdentityHashSet();
-	final Set<ClassInstance> classRefs = Util.newIdentityHashSet();
+	Set<MethodInstance> refsIn = Util.newIdentityHashSet();
+	Set<MethodInstance> refsOut = Util.newIdentityHashSet();
+	Set<FieldInstance> fieldReadRefs = Util.newIdentityHashSet();
+	Set<FieldInstance> fieldWriteRefs = Util.newIdentityHashSet();
+	Set<ClassInstance> classRefs = Util.newIdentityHashSet();
 }
@@ -164,6 +164,7 @@ public final class MethodVarInstance implements Matchable<MethodVarInstance> {
 
 	public void setTmpName(String tmpName) {
 		this.tmpName = tmpName;
+		method.getCls().getEnv().getGlobal().invalidateNames(ClassEnvironment.tmpNameTypes);
 	}
 
 	@Override
@@ -173,6 +174,7 @@ public final class MethodVarInstance implements Matchable<MethodVarInstance> {
 
 	public void setUid(int uid) {
 		this.uid = uid;
+		method.getCls().getEnv().getGlobal().invalidateNames(ClassEnvironment.uidNameTypes);
 	}
 
 	@Override
@@ -182,6 +184,7 @@ public final class MethodVarInstance implements Matchable<MethodVarInstance> {
 
 	public void setMappedName(String mappedName) {
 		this.mappedName = mappedName;
+		method.getCls().getEnv().getGlobal().invalidateNames(ClassEnvironment.mappedNameTypes);
 	}
 
 	@Override
@@ -200,6 +203,7 @@ public final class MethodVarInstance implements Matchable<MethodVarInstance> {
 		if (comment != null && comment.isEmpty()) comment = null;
 
 		this.mappedComment = comment;
+		method.getCls().getEnv().getGlobal().invalidateComments();
 	}
 
 	@Override
@@ -210,6 +214,7 @@ public final class MethodVarInstance implements Matchable<MethodVarInstance> {
 	public void setAuxName(int index, String name) {
 		if (this.auxName == null) this.auxName = new String[NameType.AUX_COUNT];
 		this.auxName[index] = name;
+		method.getCls().getEnv().getGlobal().invalidateNames(ClassEnvironment.getAuxNameTypes(index));
 	}
 
 	@Override
@@ -235,6 +240,7 @@ public final class MethodVarInstance implements Matchable<MethodVarInstance> {
 		if (matchable && !method.isMatchable()) return false;
 
 		this.matchable = matchable;
+		method.getCls().getEnv().getGlobal().invalidateSimilarity(this);
 
 		return true;
 	}
@@ -248,7 +254,12 @@ public final class MethodVarInstance implements Matchable<MethodVarInstance> {
 		assert match == null || isMatchable();
 		assert match == null || method == match.method.getMatch();
 
+		String[] prevNames = ClassEnvironment.getNames(this);
+		String prevComment = getMappedComment();
+
 		this.matchedInstance = match;
+		method.getCls().getEnv().getGlobal().invalidateSimilarity(this);
+		method.getCls().getEnv().getGlobal().invalidateChangedNames(this, prevNames, prevComment);
 	}
 
 	@Override
@@ -0,0 +1,49 @@
+package matcher.type;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import matcher.NameType;
+
+/**
+ * Lookup table from the names of a collection of matchables for a single name type.
+ *
+ * An index is tied to the name epoch of its name type at creation time, see {@link ClassEnvironment#getNameEpoch},
+ * and to the size of the indexed collection, which only ever grows.
+ */
+final class NameIndex<T extends Matchable<?>> {
+	NameIndex(Collection<T> elements, NameType nameType, int epoch) {
+		this.epoch = epoch;
+		this.size = elements.size();
+
+		for (T element : elements) {
+			String name = element.getName(nameType);
+			if (name != null) index.computeIfAbsent(name, ignore -> new ArrayList<>(1)).add(element);
+		}
+	}
+
+	boolean isValid(int epoch, int size) {
+		return this.epoch == epoch && this.size == size;
+	}
+
+	/**
+	 * Get all elements with the supplied name in the indexed collection's iteration order.
+	 */
+	List<T> get(String name) {
+		return index.getOrDefault(name, Collections.emptyList());
+	}
+
+	T getFirst(String name) {
+		List<T> ret = index.get(name);
+
+		return ret != null ? ret.get(0) : null;
+	}
+
+	private final int epoch;
+	private final int size;
+	private final Map<String, List<T>> index = new HashMap<>();
+}
@@ -0,0 +1,116 @@
+package matcher.type;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import matcher.NameType;
+
+/**
+ * Size bounded cache of remapped class files as produced by {@link ClassInstance#serialize}.
+ *
+ * Entries are tagged with the class' name version for their name type, see {@link ClassInstance#getNameVersion}, so
+ * renames only invalidate the class files using the renamed names. Once the cached bytes exceed the limit, the least
+ * recently used quarter gets evicted.
+ */
+final class SerializedClassCache {
+	SerializedClassCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	byte[] get(ClassInstance cls, NameType nameType, long version) {
+		Entry entry = entries.get(new Key(cls, nameType));
+		if (entry == null || entry.version != version) return null;
+
+		entry.lastAccess = accessCounter.incrementAndGet();
+
+		return entry.data;
+	}
+
+	/**
+	 * Store a class file, the version has to be obtained before serializing.
+	 */
+	void put(ClassInstance cls, NameType nameType, long version, byte[] data) {
+		if (data.length > maxBytes / 4) return;
+
+		Entry entry = new Entry(data, version);
+		entry.lastAccess = accessCounter.incrementAndGet();
+
+		Entry prev = entries.put(new Key(cls, nameType), entry);
+		long size = totalBytes.addAndGet(data.length - (prev != null ? prev.data.length : 0));
+
+		if (size > maxBytes && evictionLock.tryLock()) {
+			try {
+				evict();
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+
+	private void evict() {
+		List<Map.Entry<Key, Entry>> candidates = new ArrayList<>(entries.entrySet());
+		candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+
+		long target = maxBytes * 3 / 4;
+
+		for (Map.Entry<Key, Entry> e : candidates) {
+			if (totalBytes.get() <= target) break;
+
+			if (entries.remove(e.getKey(), e.getValue())) {
+				totalBytes.addAndGet(-e.getValue().data.length);
+			}
+		}
+	}
+
+	void clear() {
+		entries.clear();
+		totalBytes.set(0);
+	}
+
+	private static final class Key {
+		Key(ClassInstance cls, NameType nameType) {
+			this.cls = cls;
+			this.nameType = nameType;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(cls, nameType);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+
+			Key o = (Key) obj;
+
+			return cls == o.cls && nameType == o.nameType;
+		}
+
+		final ClassInstance cls;
+		final NameType nameType;
+	}
+
+	private static final class Entry {
+		Entry(byte[] data, long version) {
+			this.data = data;
+			this.version = version;
+		}
+
+		final byte[] data;
+		final long version;
+		volatile long lastAccess;
+	}
+
+	private final long maxBytes;
+	private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong totalBytes = new AtomicLong();
+	private final AtomicLong accessCounter = new AtomicLong();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+}
@@ -0,0 +1,162 @@
+package matcher.type;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.InnerClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+
+/**
+ * Pool of canonical name, descriptor, id and string constant instances shared by both environments.
+ *
+ * ClassReader only deduplicates strings within a single class, the pool extends this across all classes of
+ * both sides and the class path. Equal pooled strings are identical, which makes equals checks between them
+ * a reference comparison.
+ */
+final class SymbolPool {
+	String intern(String str) {
+		if (str == null) return null;
+
+		String ret = symbols.get(str);
+		if (ret != null) return ret;
+
+		ret = symbols.putIfAbsent(str, str);
+
+		return ret != null ? ret : str;
+	}
+
+	void clear() {
+		symbols.clear();
+	}
+
+	/**
+	 * Replace all strings referenced by the class node with their pooled instances.
+	 */
+	void intern(ClassNode cn) {
+		cn.name = intern(cn.name);
+		cn.superName = intern(cn.superName);
+		internAll(cn.interfaces);
+		cn.signature = intern(cn.signature);
+		cn.outerClass = intern(cn.outerClass);
+		cn.outerMethod = intern(cn.outerMethod);
+		cn.outerMethodDesc = intern(cn.outerMethodDesc);
+		cn.nestHostClass = intern(cn.nestHostClass);
+		internAll(cn.nestMembers);
+		internAll(cn.permittedSubclasses);
+
+		for (InnerClassNode icn : cn.innerClasses) {
+			icn.name = intern(icn.name);
+			icn.outerName = intern(icn.outerName);
+			icn.innerName = intern(icn.innerName);
+		}
+
+		for (FieldNode fn : cn.fields) {
+			fn.name = intern(fn.name);
+			fn.desc = intern(fn.desc);
+			fn.signature = intern(fn.signature);
+			if (fn.value instanceof String) fn.value = intern((String) fn.value);
+		}
+
+		for (MethodNode mn : cn.methods) {
+			intern(mn);
+		}
+	}
+
+	private void intern(MethodNode mn) {
+		mn.name = intern(mn.name);
+		mn.desc = intern(mn.desc);
+		mn.signature = intern(mn.signature);
+		internAll(mn.exceptions);
+
+		for (AbstractInsnNode ain = mn.instructions.getFirst(); ain != null; ain = ain.getNext()) {
+			switch (ain.getType()) {
+			case AbstractInsnNode.FIELD_INSN: {
+				FieldInsnNode in = (FieldInsnNode) ain;
+				in.owner = intern(in.owner);
+				in.name = intern(in.name);
+				in.desc = intern(in.desc);
+				break;
+			}
+			case AbstractInsnNode.METHOD_INSN: {
+				MethodInsnNode in = (MethodInsnNode) ain;
+				in.owner = intern(in.owner);
+				in.name = intern(in.name);
+				in.desc = intern(in.desc);
+				break;
+			}
+			case AbstractInsnNode.INVOKE_DYNAMIC_INSN: {
+				InvokeDynamicInsnNode in = (InvokeDynamicInsnNode) ain;
+				in.name = intern(in.name);
+				in.desc = intern(in.desc);
+				break;
+			}
+			case AbstractInsnNode.TYPE_INSN: {
+				TypeInsnNode in = (TypeInsnNode) ain;
+				in.desc = intern(in.desc);
+				break;
+			}
+			case AbstractInsnNode.MULTIANEWARRAY_INSN: {
+				MultiANewArrayInsnNode in = (MultiANewArrayInsnNode) ain;
+				in.desc = intern(in.desc);
+				break;
+			}
+			case AbstractInsnNode.LDC_INSN: {
+				LdcInsnNode in = (LdcInsnNode) ain;
+				if (in.cst instanceof String) in.cst = intern((String) in.cst);
+				break;
+			}
+			case AbstractInsnNode.FRAME: {
+				FrameNode in = (FrameNode) ain;
+				internAllObjects(in.local);
+				internAllObjects(in.stack);
+				break;
+			}
+			}
+		}
+
+		for (TryCatchBlockNode tcb : mn.tryCatchBlocks) {
+			tcb.type = intern(tcb.type);
+		}
+
+		if (mn.localVariables != null) {
+			for (LocalVariableNode lv : mn.localVariables) {
+				lv.name = intern(lv.name);
+				lv.desc = intern(lv.desc);
+				lv.signature = intern(lv.signature);
+			}
+		}
+	}
+
+	private void internAll(List<String> list) {
+		if (list == null) return;
+
+		for (ListIterator<String> it = list.listIterator(); it.hasNext(); ) {
+			it.set(intern(it.next()));
+		}
+	}
+
+	private void internAllObjects(List<Object> list) {
+		if (list == null) return;
+
+		for (ListIterator<Object> it = list.listIterator(); it.hasNext(); ) {
+			Object o = it.next();
+			if (o instanceof String) it.set(intern((String) o));
+		}
+	}
+
+	private final Map<String, String> symbols = new ConcurrentHashMap<>();
+}